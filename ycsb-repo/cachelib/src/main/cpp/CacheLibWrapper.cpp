@@ -9,15 +9,26 @@
 #include <cstring>
 #include <iostream>
 #include <mutex>  
+#include <atomic>
+#include <chrono>
+#include <functional>
 
 
 using json = nlohmann::json;
 using namespace facebook::cachelib;
 using Cache = LruAllocator;
 
+// key 到 pool 的路由方式，由 JSON 中的 poolRouting 指定
+enum class PoolRouting {
+    kHash,    // 按 key 哈希，按 poolSizes 比例分配
+    kSize,    // 按 value 大小，poolSizeThresholds 为各 pool 的上界
+    kPrefix,  // 按 key 前缀，poolKeyPrefixes 中第一个匹配的 pool，无匹配时退回哈希
+};
+
 class CacheLibWrapperImpl {
 public:
-    explicit CacheLibWrapperImpl(const std::string& configPath) {
+    CacheLibWrapperImpl(const std::string& configPath, bool concurrent)
+        : concurrent_(concurrent) {
         // 读取 JSON 配置
         std::ifstream file(configPath);
         if (!file.is_open()) {
@@ -36,14 +47,27 @@ public:
         if (poolSizes.size() != static_cast<size_t>(numPools)) {
             throw std::runtime_error("poolSizes length must match numPools");
         }
+        parseRouting(cacheCfg, poolSizes);
 
         // 配置 CacheAllocatorConfig
         CacheAllocatorConfig<Cache> config;
         config.setCacheSize(cacheSizeMB * 1024 * 1024)
             .setCacheName("cachelib");
 
+        // 后台 reaper 周期扫描并回收过期 item，未配置时使用 CacheLib 默认值
+        int reaperIntervalMs = cacheCfg.value("reaperIntervalMs", 0);
+        if (reaperIntervalMs > 0) {
+            config.enableItemReaperInBackground(std::chrono::milliseconds(reaperIntervalMs));
+        }
+
+        // 可选的 NVM 层：DRAM 淘汰的 item 写入 Navy（BlockCache + BigHash）
+        if (cacheCfg.contains("nvmCache")) {
+            configureNvmCache(cacheCfg.at("nvmCache"), config);
+        }
+
         bool attached = false;
-        if (!persistencePath.empty()) {
+        persistent_ = !persistencePath.empty();
+        if (persistent_) {
             config.enableCachePersistence(persistencePath);
 
             // 尝试 attach
@@ -76,55 +100,280 @@ public:
             if (pools_.empty()) {
                 throw std::runtime_error("No pools created in CacheLibWrapperImpl");
             }
-            pool_ = pools_.front();  // 默认使用第一个pool
         } else {
-            // attach 成功时，从已有池中获取
-            pool_ = allocator_->getPoolId("pool_0");
-            if (pool_ == PoolId{}) {
-                throw std::runtime_error("Failed to get pool_0 from attached cache");
+            // attach 成功时，按名字找回全部已有池
+            pools_.clear();
+            for (int i = 0; i < numPools; ++i) {
+                std::string name = "pool_" + std::to_string(i);
+                PoolId pid = allocator_->getPoolId(name);
+                if (pid == Slab::kInvalidPoolId) {
+                    throw std::runtime_error("Failed to get " + name + " from attached cache");
+                }
+                pools_.push_back(pid);
             }
         }
+        poolMisses_.reset(new std::atomic<uint64_t>[pools_.size()]());
     }
 
-    ~CacheLibWrapperImpl() = default;
+    ~CacheLibWrapperImpl() {
+        // 持久化模式下需要 shutDown 保存元数据，下一个进程才能 attach 到这份缓存
+        if (persistent_) {
+            if (allocator_->shutDown() != Cache::ShutDownStatus::kSuccess) {
+                std::cerr << "Cache shutdown failed, the next attach will start empty" << std::endl;
+            }
+        }
+    }
 
     bool insert(const std::string& key, const std::vector<uint8_t>& value) {
-        std::lock_guard<std::mutex> lock(mutex_);
-        auto handle = allocator_->allocate(pool_, key, value.size());
-        if (!handle) return false;
-        std::memcpy(handle->getMemory(), value.data(), value.size());
-        allocator_->insertOrReplace(handle);
-        return true;
+        return insert(key, value.data(), value.size(), 0);
+    }
+
+    bool insert(const std::string& key, const uint8_t* data, size_t size, uint32_t ttlSecs) {
+        auto lock = opLock();
+        return insertUnlocked(key, data, size, ttlSecs);
     }
 
     bool read(const std::string& key, std::vector<uint8_t>& valueOut) {
-        std::lock_guard<std::mutex> lock(mutex_);
+        auto lock = opLock();
+        return readUnlocked(key, valueOut);
+    }
+
+    void batchRead(const std::vector<std::string>& keys, std::vector<std::vector<uint8_t>>& valuesOut,
+                   std::vector<bool>& foundOut) {
+        valuesOut.resize(keys.size());
+        foundOut.assign(keys.size(), false);
+        auto lock = opLock();
+        for (size_t i = 0; i < keys.size(); ++i) {
+            foundOut[i] = readUnlocked(keys[i], valuesOut[i]);
+        }
+    }
+
+    size_t batchInsert(const std::vector<std::string>& keys, const std::vector<const uint8_t*>& data,
+                       const std::vector<size_t>& sizes) {
+        size_t inserted = 0;
+        auto lock = opLock();
+        for (size_t i = 0; i < keys.size(); ++i) {
+            if (insertUnlocked(keys[i], data[i], sizes[i], 0)) {
+                inserted++;
+            }
+        }
+        return inserted;
+    }
+
+    int64_t read(const std::string& key, uint8_t* out, size_t capacity) {
+        auto lock = opLock();
         auto handle = allocator_->find(key);
-        if (!handle) return false;
-        auto data = static_cast<const uint8_t*>(handle->getMemory());
-        valueOut.assign(data, data + handle->getSize());
-        return true;
+        if (!handle) {
+            countMiss(key);
+            return -1;
+        }
+        size_t size = handle->getSize();
+        if (size <= capacity) {
+            std::memcpy(out, handle->getMemory(), size);
+        }
+        return static_cast<int64_t>(size);
     }
 
     bool update(const std::string& key, const std::vector<uint8_t>& value) {
         return insert(key, value);  // 覆盖写
     }
 
+    bool update(const std::string& key, const uint8_t* data, size_t size, uint32_t ttlSecs) {
+        return insert(key, data, size, ttlSecs);  // 覆盖写
+    }
+
     bool remove(const std::string& key) {
-        std::lock_guard<std::mutex> lock(mutex_);
+        auto lock = opLock();
         return allocator_->remove(key) == Cache::RemoveRes::kSuccess;
     }
 
+    std::vector<CachePoolStats> poolStats() {
+        auto lock = opLock();
+        std::vector<CachePoolStats> stats;
+        for (size_t i = 0; i < pools_.size(); ++i) {
+            PoolStats ps = allocator_->getPoolStats(pools_[i]);
+            CachePoolStats s;
+            s.name = ps.poolName;
+            s.hits = static_cast<int64_t>(ps.numPoolGetHits);
+            s.misses = routing_ == PoolRouting::kSize
+                ? -1 : static_cast<int64_t>(poolMisses_[i].load(std::memory_order_relaxed));
+            s.evictions = static_cast<int64_t>(ps.numEvictions());
+            s.items = static_cast<int64_t>(ps.numItems());
+            s.allocFailures = static_cast<int64_t>(ps.numAllocFailures());
+            stats.push_back(s);
+        }
+        return stats;
+    }
+
+    std::vector<int64_t> stats() {
+        auto lock = opLock();
+        GlobalCacheStats g = allocator_->getGlobalCacheStats();
+        SlabReleaseStats sr = allocator_->getSlabReleaseStats();
+        RebalancerStats rb = allocator_->getRebalancerStats();
+        ReaperStats rp = allocator_->getReaperStats();
+        std::vector<uint64_t> v = {
+            g.numCacheGets, g.numCacheGetMiss, g.numCacheGetExpiries, g.numEvictions,
+            g.allocAttempts, g.allocFailures,
+            g.numNvmGets, g.numNvmGetMiss, g.numNvmPuts, g.numNvmEvictions,
+            sr.numSlabReleaseForRebalance, sr.numSlabReleaseForResize,
+            rb.numRebalancedSlabs, rp.numReapedItems,
+        };
+        return std::vector<int64_t>(v.begin(), v.end());
+    }
+
 private:
+    // 以下两个不加锁，调用方持有 opLock()，批量接口借此整批只加一次锁
+    bool insertUnlocked(const std::string& key, const uint8_t* data, size_t size, uint32_t ttlSecs) {
+        auto handle = allocator_->allocate(pools_[route(key, size)], key, size, ttlSecs);
+        if (!handle) return false;
+        std::memcpy(handle->getMemory(), data, size);
+        allocator_->insertOrReplace(handle);
+        return true;
+    }
+
+    bool readUnlocked(const std::string& key, std::vector<uint8_t>& valueOut) {
+        auto handle = allocator_->find(key);
+        if (!handle) {
+            countMiss(key);
+            return false;
+        }
+        auto data = static_cast<const uint8_t*>(handle->getMemory());
+        valueOut.assign(data, data + handle->getSize());
+        return true;
+    }
+
+    static void configureNvmCache(const json& nvmCfg, CacheAllocatorConfig<Cache>& config) {
+        if (!nvmCfg.value("enabled", true)) return;
+        constexpr uint64_t MB = 1024ULL * 1024ULL;
+
+        std::string path = nvmCfg.value("path", "");
+        uint64_t sizeMB = nvmCfg.value("sizeMB", 0ULL);
+        if (path.empty() || sizeMB == 0) {
+            throw std::runtime_error("nvmCache requires path and sizeMB");
+        }
+
+        Cache::NvmCacheConfig nvmConfig;
+        auto& navy = nvmConfig.navyConfig;
+        navy.setSimpleFile(path, sizeMB * MB, nvmCfg.value("truncateFile", true));
+        navy.setBlockSize(nvmCfg.value("blockSize", 4096ULL));
+        navy.setDeviceMetadataSize(nvmCfg.value("metadataSizeMB", 0ULL) * MB);
+        navy.setReaderAndWriterThreads(nvmCfg.value("readerThreads", 32U),
+                                       nvmCfg.value("writerThreads", 32U));
+
+        // BlockCache 存放大 item
+        navy.blockCache()
+            .setRegionSize(static_cast<uint32_t>(nvmCfg.value("regionSizeMB", 16ULL) * MB))
+            .setCleanRegions(nvmCfg.value("cleanRegions", 1U));
+
+        // BigHash 存放不超过 smallItemMaxSize 的小 item，sizePct 为 0 时不启用
+        unsigned int bigHashSizePct = nvmCfg.value("bigHashSizePct", 0U);
+        if (bigHashSizePct > 0) {
+            navy.bigHash()
+                .setSizePctAndMaxItemSize(bigHashSizePct, nvmCfg.value("smallItemMaxSize", 640ULL))
+                .setBucketSize(nvmCfg.value("bigHashBucketSize", 4096U))
+                .setBucketBfSize(nvmCfg.value("bloomFilterPerBucketSize", 8ULL));
+        }
+
+        // 准入策略：none 全部写入，random 按概率写入，dynamic_random 按目标写入速率
+        std::string admission = nvmCfg.value("admissionPolicy", "none");
+        if (admission == "random") {
+            navy.enableRandomAdmPolicy().setAdmProbability(
+                nvmCfg.value("admissionProbability", 1.0));
+        } else if (admission == "dynamic_random") {
+            navy.enableDynamicRandomAdmPolicy().setAdmWriteRate(
+                nvmCfg.value("admissionWriteRateMB", 0ULL) * MB);
+        } else if (admission != "none") {
+            throw std::runtime_error("Unknown nvmCache admissionPolicy: " + admission);
+        }
+
+        config.enableNvmCache(nvmConfig);
+    }
+
+    void parseRouting(const json& cacheCfg, const std::vector<double>& poolSizes) {
+        std::string routing = cacheCfg.value("poolRouting", "hash");
+        // 哈希路由按 poolSizes 的累计比例切分哈希空间
+        double total = 0;
+        for (double f : poolSizes) total += f;
+        double acc = 0;
+        for (double f : poolSizes) {
+            acc += f / total;
+            hashBounds_.push_back(acc);
+        }
+        hashBounds_.back() = 1.0;
+
+        if (routing == "hash") {
+            routing_ = PoolRouting::kHash;
+        } else if (routing == "size") {
+            routing_ = PoolRouting::kSize;
+            sizeThresholds_ = cacheCfg.value("poolSizeThresholds", std::vector<size_t>{});
+            if (sizeThresholds_.size() + 1 != poolSizes.size()) {
+                throw std::runtime_error("poolSizeThresholds length must be numPools - 1");
+            }
+        } else if (routing == "prefix") {
+            routing_ = PoolRouting::kPrefix;
+            keyPrefixes_ = cacheCfg.value("poolKeyPrefixes", std::vector<std::string>{});
+            if (keyPrefixes_.size() != poolSizes.size()) {
+                throw std::runtime_error("poolKeyPrefixes length must match numPools");
+            }
+        } else {
+            throw std::runtime_error("Unknown poolRouting: " + routing);
+        }
+    }
+
+    size_t hashRoute(const std::string& key) const {
+        double point = static_cast<double>(std::hash<std::string>{}(key) % 1000003) / 1000003.0;
+        size_t i = 0;
+        while (point >= hashBounds_[i]) ++i;
+        return i;
+    }
+
+    size_t route(const std::string& key, size_t size) const {
+        switch (routing_) {
+        case PoolRouting::kSize: {
+            size_t i = 0;
+            while (i < sizeThresholds_.size() && size > sizeThresholds_[i]) ++i;
+            return i;
+        }
+        case PoolRouting::kPrefix:
+            for (size_t i = 0; i < keyPrefixes_.size(); ++i) {
+                if (key.compare(0, keyPrefixes_[i].size(), keyPrefixes_[i]) == 0) return i;
+            }
+            return hashRoute(key);
+        default:
+            return hashRoute(key);
+        }
+    }
+
+    // 按大小路由时读之前不知道 item 属于哪个 pool，未命中只计入全局统计
+    void countMiss(const std::string& key) {
+        if (routing_ != PoolRouting::kSize) {
+            poolMisses_[route(key, 0)].fetch_add(1, std::memory_order_relaxed);
+        }
+    }
+
+    // 串行模式下持有 mutex_；并发模式下返回未加锁的空 lock
+    std::unique_lock<std::mutex> opLock() {
+        if (concurrent_) {
+            return std::unique_lock<std::mutex>();
+        }
+        return std::unique_lock<std::mutex>(mutex_);
+    }
+
+    const bool concurrent_;
+    bool persistent_ = false;
     std::unique_ptr<Cache> allocator_;
     std::vector<PoolId> pools_;
-    PoolId pool_;
+    PoolRouting routing_ = PoolRouting::kHash;
+    std::vector<double> hashBounds_;
+    std::vector<size_t> sizeThresholds_;
+    std::vector<std::string> keyPrefixes_;
+    std::unique_ptr<std::atomic<uint64_t>[]> poolMisses_;
     std::mutex mutex_;
 };
 
 // C++ 封装接口实现
-CacheLibWrapper::CacheLibWrapper(const std::string& configPath) {
-    cache_ = new CacheLibWrapperImpl(configPath);
+CacheLibWrapper::CacheLibWrapper(const std::string& configPath, bool concurrent) {
+    cache_ = new CacheLibWrapperImpl(configPath, concurrent);
 }
 
 CacheLibWrapper::~CacheLibWrapper() {
@@ -147,10 +396,40 @@ bool CacheLibWrapper::remove(const std::string& key) {
     return static_cast<CacheLibWrapperImpl*>(cache_)->remove(key);
 }
 
+bool CacheLibWrapper::insert(const std::string& key, const uint8_t* data, size_t size, uint32_t ttlSecs) {
+    return static_cast<CacheLibWrapperImpl*>(cache_)->insert(key, data, size, ttlSecs);
+}
+
+bool CacheLibWrapper::update(const std::string& key, const uint8_t* data, size_t size, uint32_t ttlSecs) {
+    return static_cast<CacheLibWrapperImpl*>(cache_)->update(key, data, size, ttlSecs);
+}
+
+int64_t CacheLibWrapper::read(const std::string& key, uint8_t* out, size_t capacity) {
+    return static_cast<CacheLibWrapperImpl*>(cache_)->read(key, out, capacity);
+}
+
+void CacheLibWrapper::batchRead(const std::vector<std::string>& keys,
+                                std::vector<std::vector<uint8_t>>& valuesOut, std::vector<bool>& foundOut) {
+    static_cast<CacheLibWrapperImpl*>(cache_)->batchRead(keys, valuesOut, foundOut);
+}
+
+size_t CacheLibWrapper::batchInsert(const std::vector<std::string>& keys, const std::vector<const uint8_t*>& data,
+                                    const std::vector<size_t>& sizes) {
+    return static_cast<CacheLibWrapperImpl*>(cache_)->batchInsert(keys, data, sizes);
+}
+
+std::vector<CachePoolStats> CacheLibWrapper::poolStats() {
+    return static_cast<CacheLibWrapperImpl*>(cache_)->poolStats();
+}
+
+std::vector<int64_t> CacheLibWrapper::stats() {
+    return static_cast<CacheLibWrapperImpl*>(cache_)->stats();
+}
+
 
 extern "C" {
-    CacheLibWrapper* createCacheLibWrapper(const std::string& configPath) {
-        return new CacheLibWrapper(configPath);
+    CacheLibWrapper* createCacheLibWrapper(const std::string& configPath, bool concurrent) {
+        return new CacheLibWrapper(configPath, concurrent);
     }
 
     void destroyCacheLibWrapper(CacheLibWrapper* wrapper) {
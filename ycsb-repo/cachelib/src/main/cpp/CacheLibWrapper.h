@@ -4,9 +4,20 @@
 #include <vector>
 #include <cstdint>
 
+// 单个 pool 的统计快照；misses 为 -1 表示当前路由方式无法把未命中归到某个 pool
+struct CachePoolStats {
+    std::string name;
+    int64_t hits;
+    int64_t misses;
+    int64_t evictions;
+    int64_t items;
+    int64_t allocFailures;
+};
+
 class CacheLibWrapper {
 public:
-    explicit CacheLibWrapper(const std::string& configPath);
+    // concurrent 为 true 时不再加全局锁，直接依赖 CacheLib 自身的线程安全
+    explicit CacheLibWrapper(const std::string& configPath, bool concurrent = false);
     ~CacheLibWrapper();
 
     bool insert(const std::string& key, const std::vector<uint8_t>& value);
@@ -14,12 +25,33 @@ public:
     bool update(const std::string& key, const std::vector<uint8_t>& value);
     bool remove(const std::string& key);
 
+    // 零拷贝接口：直接在调用方内存（如 Java direct ByteBuffer）与 item 之间 memcpy
+    // ttlSecs 为 0 表示不过期，过期 item 由 CacheLib 的 reaper 回收
+    bool insert(const std::string& key, const uint8_t* data, size_t size, uint32_t ttlSecs = 0);
+    bool update(const std::string& key, const uint8_t* data, size_t size, uint32_t ttlSecs = 0);
+    // 返回 item 大小，未命中返回 -1；item 大于 capacity 时不拷贝，由调用方扩容后重试
+    int64_t read(const std::string& key, uint8_t* out, size_t capacity);
+
+    // 批量接口：串行模式下整批只加一次锁
+    // valuesOut/foundOut 与 keys 一一对应，未命中的 key 对应 foundOut 为 false
+    void batchRead(const std::vector<std::string>& keys, std::vector<std::vector<uint8_t>>& valuesOut,
+                   std::vector<bool>& foundOut);
+    // 不过期写入，返回成功写入的个数
+    size_t batchInsert(const std::vector<std::string>& keys, const std::vector<const uint8_t*>& data,
+                       const std::vector<size_t>& sizes);
+
+    // 按 pool 编号顺序返回每个 pool 的统计
+    std::vector<CachePoolStats> poolStats();
+
+    // 全局累计计数，顺序见 CacheLibClient.NATIVE_STATS
+    std::vector<int64_t> stats();
+
 private:
     void* cache_;
 };
 
 // C 接口
 extern "C" {
-    CacheLibWrapper* createCacheLibWrapper(const std::string& configPath);
+    CacheLibWrapper* createCacheLibWrapper(const std::string& configPath, bool concurrent);
     void destroyCacheLibWrapper(CacheLibWrapper* wrapper);
 }
\ No newline at end of file
@@ -5,9 +5,12 @@
 #include <string>
 #include <vector>
 #include <mutex>
+#include <atomic>
 
-// 全局 CacheLib 实例及保护锁（防止多线程竞争）
-static CacheLibWrapper* g_cache = nullptr;
+// 全局 CacheLib 实例，g_cache_mutex 只保护 init/cleanup。
+// 操作只做一次 atomic load，实例的生命周期由 Java 侧引用计数保证；
+// 串行模式下的互斥由 CacheLibWrapper 内部的锁负责，这里不再加第二把锁。
+static std::atomic<CacheLibWrapper*> g_cache{nullptr};
 static std::mutex g_cache_mutex;
 
 // 将 jstring 转换为 std::string
@@ -20,17 +23,14 @@ static std::string JStringToStdString(JNIEnv* env, jstring jstr) {
 }
 
 JNIEXPORT void JNICALL Java_site_ycsb_db_cachelib_CacheLibClient_nativeInit
-  (JNIEnv* env, jobject, jstring jconfigPath) {
+  (JNIEnv* env, jobject, jstring jconfigPath, jboolean jconcurrent) {
     std::lock_guard<std::mutex> lock(g_cache_mutex);
-    if (g_cache) {
-        delete g_cache;
-        g_cache = nullptr;
-    }
+    delete g_cache.exchange(nullptr);
     std::string configPath = JStringToStdString(env, jconfigPath);
+    bool concurrent = jconcurrent == JNI_TRUE;
     try {
-        g_cache = new CacheLibWrapper(configPath);
+        g_cache.store(new CacheLibWrapper(configPath, concurrent), std::memory_order_release);
     } catch (const std::exception& ex) {
-        g_cache = nullptr;
         // 抛出Java异常
         jclass exClass = env->FindClass("java/lang/RuntimeException");
         env->ThrowNew(exClass, ex.what());
@@ -40,36 +40,34 @@ JNIEXPORT void JNICALL Java_site_ycsb_db_cachelib_CacheLibClient_nativeInit
 JNIEXPORT void JNICALL Java_site_ycsb_db_cachelib_CacheLibClient_nativeCleanup
   (JNIEnv*, jobject) {
     std::lock_guard<std::mutex> lock(g_cache_mutex);
-    if (g_cache) {
-        delete g_cache;
-        g_cache = nullptr;
-    }
+    delete g_cache.exchange(nullptr);
 }
 
 JNIEXPORT jboolean JNICALL Java_site_ycsb_db_cachelib_CacheLibClient_nativeInsert
-  (JNIEnv* env, jobject, jstring, jstring jkey, jbyteArray jvalue) {
-    std::lock_guard<std::mutex> lock(g_cache_mutex);
-    if (!g_cache) return JNI_FALSE;
+  (JNIEnv* env, jobject, jstring, jstring jkey, jbyteArray jvalue, jint jlength, jint jttl) {
+    CacheLibWrapper* cache = g_cache.load(std::memory_order_acquire);
+    if (!cache) return JNI_FALSE;
 
     std::string key = JStringToStdString(env, jkey);
 
-    jsize len = env->GetArrayLength(jvalue);
+    // 只拷贝 Java 侧复用缓冲区中有效的前 jlength 字节
+    jsize len = jlength;
     std::vector<uint8_t> value(len);
     env->GetByteArrayRegion(jvalue, 0, len, reinterpret_cast<jbyte*>(value.data()));
 
-    bool ok = g_cache->insert(key, value);
+    bool ok = cache->insert(key, value.data(), value.size(), static_cast<uint32_t>(jttl));
     return ok ? JNI_TRUE : JNI_FALSE;
 }
 
 JNIEXPORT jbyteArray JNICALL Java_site_ycsb_db_cachelib_CacheLibClient_nativeRead
   (JNIEnv* env, jobject, jstring, jstring jkey) {
-    std::lock_guard<std::mutex> lock(g_cache_mutex);
-    if (!g_cache) return nullptr;
+    CacheLibWrapper* cache = g_cache.load(std::memory_order_acquire);
+    if (!cache) return nullptr;
 
     std::string key = JStringToStdString(env, jkey);
     std::vector<uint8_t> value;
 
-    bool found = g_cache->read(key, value);
+    bool found = cache->read(key, value);
     if (!found) {
         return nullptr;
     }
@@ -80,26 +78,167 @@ JNIEXPORT jbyteArray JNICALL Java_site_ycsb_db_cachelib_CacheLibClient_nativeRea
 }
 
 JNIEXPORT jboolean JNICALL Java_site_ycsb_db_cachelib_CacheLibClient_nativeUpdate
-  (JNIEnv* env, jobject, jstring, jstring jkey, jbyteArray jvalue) {
-    std::lock_guard<std::mutex> lock(g_cache_mutex);
-    if (!g_cache) return JNI_FALSE;
+  (JNIEnv* env, jobject, jstring, jstring jkey, jbyteArray jvalue, jint jlength, jint jttl) {
+    CacheLibWrapper* cache = g_cache.load(std::memory_order_acquire);
+    if (!cache) return JNI_FALSE;
 
     std::string key = JStringToStdString(env, jkey);
 
-    jsize len = env->GetArrayLength(jvalue);
+    // 只拷贝 Java 侧复用缓冲区中有效的前 jlength 字节
+    jsize len = jlength;
     std::vector<uint8_t> value(len);
     env->GetByteArrayRegion(jvalue, 0, len, reinterpret_cast<jbyte*>(value.data()));
 
-    bool ok = g_cache->update(key, value);
+    bool ok = cache->update(key, value.data(), value.size(), static_cast<uint32_t>(jttl));
     return ok ? JNI_TRUE : JNI_FALSE;
 }
 
 JNIEXPORT jboolean JNICALL Java_site_ycsb_db_cachelib_CacheLibClient_nativeDelete
   (JNIEnv* env, jobject, jstring, jstring jkey) {
-    std::lock_guard<std::mutex> lock(g_cache_mutex);
-    if (!g_cache) return JNI_FALSE;
+    CacheLibWrapper* cache = g_cache.load(std::memory_order_acquire);
+    if (!cache) return JNI_FALSE;
+
+    std::string key = JStringToStdString(env, jkey);
+    bool ok = cache->remove(key);
+    return ok ? JNI_TRUE : JNI_FALSE;
+}
+
+JNIEXPORT jboolean JNICALL Java_site_ycsb_db_cachelib_CacheLibClient_nativeInsertDirect
+  (JNIEnv* env, jobject, jstring, jstring jkey, jobject jbuffer, jint jlength, jint jttl) {
+    CacheLibWrapper* cache = g_cache.load(std::memory_order_acquire);
+    if (!cache) return JNI_FALSE;
+
+    auto data = static_cast<const uint8_t*>(env->GetDirectBufferAddress(jbuffer));
+    if (!data) return JNI_FALSE;
+
+    std::string key = JStringToStdString(env, jkey);
+    bool ok = cache->insert(key, data, static_cast<size_t>(jlength), static_cast<uint32_t>(jttl));
+    return ok ? JNI_TRUE : JNI_FALSE;
+}
+
+JNIEXPORT jint JNICALL Java_site_ycsb_db_cachelib_CacheLibClient_nativeReadDirect
+  (JNIEnv* env, jobject, jstring, jstring jkey, jobject jbuffer, jint jcapacity) {
+    CacheLibWrapper* cache = g_cache.load(std::memory_order_acquire);
+    if (!cache) return -1;
+
+    auto out = static_cast<uint8_t*>(env->GetDirectBufferAddress(jbuffer));
+    if (!out) return -1;
+
+    std::string key = JStringToStdString(env, jkey);
+    // item 直接从 handle 拷贝进 Java 的 direct buffer，不经过 vector / jbyteArray
+    return static_cast<jint>(cache->read(key, out, static_cast<size_t>(jcapacity)));
+}
+
+JNIEXPORT jboolean JNICALL Java_site_ycsb_db_cachelib_CacheLibClient_nativeUpdateDirect
+  (JNIEnv* env, jobject, jstring, jstring jkey, jobject jbuffer, jint jlength, jint jttl) {
+    CacheLibWrapper* cache = g_cache.load(std::memory_order_acquire);
+    if (!cache) return JNI_FALSE;
+
+    auto data = static_cast<const uint8_t*>(env->GetDirectBufferAddress(jbuffer));
+    if (!data) return JNI_FALSE;
 
     std::string key = JStringToStdString(env, jkey);
-    bool ok = g_cache->remove(key);
+    bool ok = cache->update(key, data, static_cast<size_t>(jlength), static_cast<uint32_t>(jttl));
     return ok ? JNI_TRUE : JNI_FALSE;
-}
\ No newline at end of file
+}
+
+JNIEXPORT jobjectArray JNICALL Java_site_ycsb_db_cachelib_CacheLibClient_nativeBatchRead
+  (JNIEnv* env, jobject, jstring, jobjectArray jkeys) {
+    jclass byteArrayClass = env->FindClass("[B");
+    if (!byteArrayClass) return nullptr;
+    jsize n = env->GetArrayLength(jkeys);
+    jobjectArray jret = env->NewObjectArray(n, byteArrayClass, nullptr);
+    if (!jret) return nullptr;
+
+    CacheLibWrapper* cache = g_cache.load(std::memory_order_acquire);
+    if (!cache) return nullptr;
+
+    std::vector<std::string> keys(n);
+    for (jsize i = 0; i < n; i++) {
+        auto jkey = static_cast<jstring>(env->GetObjectArrayElement(jkeys, i));
+        keys[i] = JStringToStdString(env, jkey);
+        env->DeleteLocalRef(jkey);
+    }
+
+    // 整个批次在 wrapper 内只加一次锁，拿到结果后再创建 Java 数组，未命中的 key 对应 null
+    std::vector<std::vector<uint8_t>> values;
+    std::vector<bool> found;
+    cache->batchRead(keys, values, found);
+    for (jsize i = 0; i < n; i++) {
+        if (!found[i]) continue;
+        const std::vector<uint8_t>& value = values[i];
+        jbyteArray jvalue = env->NewByteArray(static_cast<jsize>(value.size()));
+        if (!jvalue) return nullptr;
+        env->SetByteArrayRegion(jvalue, 0, static_cast<jsize>(value.size()), reinterpret_cast<const jbyte*>(value.data()));
+        env->SetObjectArrayElement(jret, i, jvalue);
+        env->DeleteLocalRef(jvalue);
+    }
+    return jret;
+}
+
+JNIEXPORT jint JNICALL Java_site_ycsb_db_cachelib_CacheLibClient_nativeBatchInsert
+  (JNIEnv* env, jobject, jstring, jobjectArray jkeys, jobjectArray jvalues) {
+    CacheLibWrapper* cache = g_cache.load(std::memory_order_acquire);
+    if (!cache) return 0;
+
+    // 先借用全部 Java 数组的内存，避免再拷贝一份 vector，整个批次在 wrapper 内只加一次锁
+    jsize n = env->GetArrayLength(jkeys);
+    if (env->EnsureLocalCapacity(n + 1) != 0) return 0;
+    std::vector<jbyteArray> jvalueRefs(n);
+    std::vector<jbyte*> pinned(n);
+    std::vector<std::string> keys;
+    std::vector<const uint8_t*> data;
+    std::vector<size_t> sizes;
+    for (jsize i = 0; i < n; i++) {
+        jvalueRefs[i] = static_cast<jbyteArray>(env->GetObjectArrayElement(jvalues, i));
+        pinned[i] = env->GetByteArrayElements(jvalueRefs[i], nullptr);
+        if (!pinned[i]) continue;
+        auto jkey = static_cast<jstring>(env->GetObjectArrayElement(jkeys, i));
+        keys.push_back(JStringToStdString(env, jkey));
+        env->DeleteLocalRef(jkey);
+        data.push_back(reinterpret_cast<const uint8_t*>(pinned[i]));
+        sizes.push_back(static_cast<size_t>(env->GetArrayLength(jvalueRefs[i])));
+    }
+
+    jint inserted = static_cast<jint>(cache->batchInsert(keys, data, sizes));
+
+    for (jsize i = 0; i < n; i++) {
+        if (pinned[i]) {
+            env->ReleaseByteArrayElements(jvalueRefs[i], pinned[i], JNI_ABORT);
+        }
+        env->DeleteLocalRef(jvalueRefs[i]);
+    }
+    return inserted;
+}
+
+JNIEXPORT jlongArray JNICALL Java_site_ycsb_db_cachelib_CacheLibClient_nativePoolStats
+  (JNIEnv* env, jobject) {
+    CacheLibWrapper* cache = g_cache.load(std::memory_order_acquire);
+    if (!cache) return nullptr;
+
+    // 每个 pool 依次为 hits, misses, evictions, items, allocFailures
+    std::vector<jlong> flat;
+    for (const auto& s : cache->poolStats()) {
+        flat.push_back(s.hits);
+        flat.push_back(s.misses);
+        flat.push_back(s.evictions);
+        flat.push_back(s.items);
+        flat.push_back(s.allocFailures);
+    }
+    jlongArray jret = env->NewLongArray(static_cast<jsize>(flat.size()));
+    if (!jret) return nullptr;
+    env->SetLongArrayRegion(jret, 0, static_cast<jsize>(flat.size()), flat.data());
+    return jret;
+}
+
+JNIEXPORT jlongArray JNICALL Java_site_ycsb_db_cachelib_CacheLibClient_nativeStats
+  (JNIEnv* env, jobject) {
+    CacheLibWrapper* cache = g_cache.load(std::memory_order_acquire);
+    if (!cache) return nullptr;
+
+    std::vector<int64_t> stats = cache->stats();
+    jlongArray jret = env->NewLongArray(static_cast<jsize>(stats.size()));
+    if (!jret) return nullptr;
+    env->SetLongArrayRegion(jret, 0, static_cast<jsize>(stats.size()), reinterpret_cast<const jlong*>(stats.data()));
+    return jret;
+}
@@ -4,12 +4,11 @@
 package site.ycsb.db.cachelib;
 
 import site.ycsb.*;
+import site.ycsb.measurements.Measurements;
 
 import java.util.*;
-import java.util.concurrent.atomic.AtomicBoolean;
-import java.io.*;
 
-import java.nio.charset.StandardCharsets;
+import java.nio.ByteBuffer;
 
 /**
  * CacheLibClient implements YCSB DB interface using native CacheLib via JNI.
@@ -20,118 +19,309 @@ public class CacheLibClient extends DB {
     System.loadLibrary("cachelibjni");
   }
 
-  /** Flag to ensure native initialization only happens once. */
-  private static final AtomicBoolean INITIALIZED = new AtomicBoolean(false);
+  /**
+   * Property that switches the native layer to concurrent mode. When true, operations no longer
+   * serialize on a global lock and rely on CacheLib's own thread safety instead.
+   */
+  public static final String CONCURRENT_PROPERTY = "cachelib.concurrent";
+  public static final String CONCURRENT_PROPERTY_DEFAULT = "false";
+
+  /**
+   * Property that switches reads and writes to the direct ByteBuffer native API. Values are then
+   * copied straight between a per-thread off-heap buffer and CacheLib item memory, instead of
+   * going through intermediate byte arrays and vectors.
+   */
+  public static final String DIRECT_BUFFER_PROPERTY = "cachelib.directbuffer";
+  public static final String DIRECT_BUFFER_PROPERTY_DEFAULT = "false";
+
+  /** Initial size in bytes of the per-thread direct buffer; it grows on demand. */
+  public static final String DIRECT_BUFFER_SIZE_PROPERTY = "cachelib.directbuffer.size";
+  public static final String DIRECT_BUFFER_SIZE_PROPERTY_DEFAULT = "65536";
+
+  /**
+   * Interval in seconds at which the native cache counters are polled and added to the CACHELIB-&lt;STAT&gt;
+   * counters; defaults to status.interval so every status line shows their running totals. 0 only records
+   * them when the last client cleans up.
+   */
+  public static final String STATS_INTERVAL_PROPERTY = "cachelib.stats.interval";
+
+  /** Global counters returned by nativeStats, in order. */
+  private static final String[] NATIVE_STATS = {
+      "GETS", "GET-MISSES", "GET-EXPIRIES", "EVICTIONS", "ALLOC-ATTEMPTS", "ALLOC-FAILURES",
+      "NVM-GETS", "NVM-GET-MISSES", "NVM-PUTS", "NVM-EVICTIONS",
+      "SLAB-RELEASES-REBALANCE", "SLAB-RELEASES-RESIZE", "REBALANCED-SLABS", "REAPED-ITEMS"};
+
+  /** Number of client threads sharing the native cache; guarded by CacheLibClient.class. */
+  private static int references = 0;
+
+  /** Background thread polling nativeStats, if enabled; guarded by CacheLibClient.class. */
+  private static Thread statsPoller;
+
+  /** Counters seen by the previous poll, so that each poll records what changed since. */
+  private static long[] lastStats;
+
+  private boolean useDirectBuffer;
+
+  /** Reusable off-heap buffer of this client thread, only allocated in direct buffer mode. */
+  private ByteBuffer directBuffer;
+
+  /** Record codec of this client thread; values are encoded into its reusable buffer. */
+  private final RecordCodec codec = new RecordCodec();
 
   // JNI native 方法声明
-  private native void nativeInit(String config);
+  private native void nativeInit(String config, boolean concurrent);
   private native void nativeCleanup();
-  private native boolean nativeInsert(String table, String key, byte[] value);
+  private native boolean nativeInsert(String table, String key, byte[] value, int length, int ttl);
   private native byte[] nativeRead(String table, String key);
-  private native boolean nativeUpdate(String table, String key, byte[] value);
+  private native boolean nativeUpdate(String table, String key, byte[] value, int length, int ttl);
   private native boolean nativeDelete(String table, String key);
+  private native boolean nativeInsertDirect(String table, String key, ByteBuffer value, int length, int ttl);
+  private native int nativeReadDirect(String table, String key, ByteBuffer value, int capacity);
+  private native boolean nativeUpdateDirect(String table, String key, ByteBuffer value, int length, int ttl);
+  private native byte[][] nativeBatchRead(String table, String[] keys);
+  private native int nativeBatchInsert(String table, String[] keys, byte[][] values);
+  private native long[] nativePoolStats();
+  private native long[] nativeStats();
+
+  /** Per-pool counters returned by nativePoolStats, in order. */
+  private static final String[] POOL_STATS = {"HITS", "MISSES", "EVICTIONS", "ITEMS", "ALLOC-FAILURES"};
+
+  /** The pool stat that is a level rather than a counter. */
+  private static final String POOL_GAUGE = "ITEMS";
 
   @Override
   public void init() {
-    if (INITIALIZED.compareAndSet(false, true)) {
-      String configPath = getProperties().getProperty("cachelib.config");
-      if (configPath == null || configPath.isEmpty()) {
-        throw new RuntimeException("Missing required property: cachelib.config");
-      }
-      try {
-        nativeInit(configPath);
-      } catch (Exception e) {
-        INITIALIZED.set(false);
-        throw new RuntimeException("CacheLib native init failed", e);
+    synchronized (CacheLibClient.class) {
+      if (references == 0) {
+        String configPath = getProperties().getProperty("cachelib.config");
+        if (configPath == null || configPath.isEmpty()) {
+          throw new RuntimeException("Missing required property: cachelib.config");
+        }
+        boolean concurrent = Boolean.parseBoolean(
+            getProperties().getProperty(CONCURRENT_PROPERTY, CONCURRENT_PROPERTY_DEFAULT));
+        try {
+          nativeInit(configPath, concurrent);
+        } catch (Exception e) {
+          throw new RuntimeException("CacheLib native init failed", e);
+        }
+        startStatsPoller(Integer.parseInt(getProperties().getProperty(STATS_INTERVAL_PROPERTY,
+            getProperties().getProperty("status.interval", "10"))));
       }
+      references++;
+    }
+
+    useDirectBuffer = Boolean.parseBoolean(
+        getProperties().getProperty(DIRECT_BUFFER_PROPERTY, DIRECT_BUFFER_PROPERTY_DEFAULT));
+    if (useDirectBuffer) {
+      directBuffer = ByteBuffer.allocateDirect(Integer.parseInt(
+          getProperties().getProperty(DIRECT_BUFFER_SIZE_PROPERTY, DIRECT_BUFFER_SIZE_PROPERTY_DEFAULT)));
     }
   }
 
+  /**
+   * The native cache is torn down only by the last client thread, so that threads still running
+   * operations never observe a destroyed cache (there is no lock protecting them in concurrent mode).
+   */
   @Override
   public void cleanup() {
-    if (INITIALIZED.compareAndSet(true, false)) {
-      nativeCleanup();
+    synchronized (CacheLibClient.class) {
+      if (references == 1) {
+        stopStatsPoller();
+        pollStats();
+        reportPoolStats();
+        nativeCleanup();
+      }
+      references--;
+    }
+  }
+
+  private void startStatsPoller(int intervalSeconds) {
+    lastStats = null;
+    if (intervalSeconds <= 0) {
+      return;
+    }
+    final long intervalMs = intervalSeconds * 1000L;
+    statsPoller = new Thread(() -> {
+        try {
+          while (true) {
+            Thread.sleep(intervalMs);
+            pollStats();
+          }
+        } catch (InterruptedException e) {
+          // cleanup stops the poller before tearing down the native cache
+        }
+      }, "cachelib-stats");
+    statsPoller.setDaemon(true);
+    statsPoller.start();
+  }
+
+  private static void stopStatsPoller() {
+    if (statsPoller == null) {
+      return;
+    }
+    statsPoller.interrupt();
+    try {
+      statsPoller.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    statsPoller = null;
+  }
+
+  /**
+   * Adds how much each native counter grew since the previous poll to the CACHELIB-&lt;STAT&gt; counter,
+   * so the status thread prints the running totals and the exporter the totals of the run, next to
+   * the operation latencies.
+   */
+  private void pollStats() {
+    long[] stats = nativeStats();
+    if (stats == null) {
+      return;
+    }
+    Measurements measurements = Measurements.getMeasurements();
+    for (int i = 0; i < stats.length && i < NATIVE_STATS.length; i++) {
+      long delta = lastStats == null ? stats[i] : stats[i] - lastStats[i];
+      measurements.count("CACHELIB-" + NATIVE_STATS[i], delta);
+    }
+    lastStats = stats;
+  }
+
+  /**
+   * Records the final counters of every cache pool as CACHELIB-POOL&lt;n&gt;-&lt;STAT&gt; counters, and its
+   * item count as a gauge, so that they appear in the exported results next to the operation
+   * latencies. Misses are only attributed to pools when routing is key based, otherwise the native
+   * layer returns -1 and they are left out.
+   */
+  private void reportPoolStats() {
+    long[] stats = nativePoolStats();
+    if (stats == null) {
+      return;
+    }
+    Measurements measurements = Measurements.getMeasurements();
+    for (int i = 0; i < stats.length; i++) {
+      if (stats[i] < 0) {
+        continue;
+      }
+      String stat = POOL_STATS[i % POOL_STATS.length];
+      String name = "CACHELIB-POOL" + (i / POOL_STATS.length) + "-" + stat;
+      if (POOL_GAUGE.equals(stat)) {
+        measurements.gauge(name, stats[i]);
+      } else {
+        measurements.count(name, stats[i]);
+      }
     }
   }
 
   @Override
   public Status insert(String table, String key, Map<String, ByteIterator> values) {
-    byte[] value = serialize(values);
-    return nativeInsert(table, key, value) ? Status.OK : Status.ERROR;
+    return insert(table, key, values, 0);
+  }
+
+  /**
+   * Inserts an item that CacheLib expires after {@code ttl} seconds; expired items are no longer
+   * returned by reads and are reclaimed by the background reaper.
+   */
+  @Override
+  public Status insert(String table, String key, Map<String, ByteIterator> values, int ttl) {
+    if (useDirectBuffer) {
+      directBuffer.clear();
+      directBuffer = codec.encode(values, directBuffer);
+      return nativeInsertDirect(table, key, directBuffer, directBuffer.position(), ttl) ? Status.OK : Status.ERROR;
+    }
+    int length = codec.encode(values);
+    return nativeInsert(table, key, codec.buffer(), length, ttl) ? Status.OK : Status.ERROR;
   }
 
   @Override
   public Status read(String table, String key, Set<String> fields, Map<String, ByteIterator> result) {
+    if (useDirectBuffer) {
+      return readDirect(table, key, fields, result);
+    }
     byte[] value = nativeRead(table, key);
     if (value == null) {
       return Status.NOT_FOUND;
     }
-    deserialize(value, fields, result);
+    codec.decode(value, fields, result);
     return Status.OK;
   }
 
-  @Override
-  public Status update(String table, String key, Map<String, ByteIterator> values) {
-    byte[] value = serialize(values);
-    return nativeUpdate(table, key, value) ? Status.OK : Status.ERROR;
+  /**
+   * Reads an item straight into the direct buffer. The native call reports the item size without
+   * copying when the buffer is too small, in which case the buffer is grown and the read retried.
+   */
+  private Status readDirect(String table, String key, Set<String> fields, Map<String, ByteIterator> result) {
+    int size = nativeReadDirect(table, key, directBuffer, directBuffer.capacity());
+    while (size > directBuffer.capacity()) {
+      directBuffer = ByteBuffer.allocateDirect(Integer.highestOneBit(size) << 1);
+      size = nativeReadDirect(table, key, directBuffer, directBuffer.capacity());
+    }
+    if (size < 0) {
+      return Status.NOT_FOUND;
+    }
+    directBuffer.clear();
+    directBuffer.limit(size);
+    codec.decode(directBuffer, fields, result);
+    return Status.OK;
   }
 
+  /**
+   * Reads the whole batch in a single native call, which in serial mode takes the cache lock once for
+   * all keys instead of once per key, and creates the returned arrays only after releasing it. Batches
+   * always use the byte array path.
+   */
   @Override
-  public Status delete(String table, String key) {
-    return nativeDelete(table, key) ? Status.OK : Status.ERROR;
+  public Status batchRead(String table, List<String> keys, Set<String> fields,
+                          List<Map<String, ByteIterator>> results) {
+    byte[][] values = nativeBatchRead(table, keys.toArray(new String[0]));
+    if (values == null) {
+      return Status.ERROR;
+    }
+    Status status = Status.OK;
+    for (byte[] value : values) {
+      if (value == null) {
+        results.add(null);
+        status = Status.NOT_FOUND;
+        continue;
+      }
+      Map<String, ByteIterator> result = new HashMap<>();
+      codec.decode(value, fields, result);
+      results.add(result);
+    }
+    return status;
   }
 
   /**
-   * Serialize a map of ByteIterator values into a byte array.
+   * Inserts the whole batch in a single native call, see {@link #batchRead}.
    */
-  private byte[] serialize(Map<String, ByteIterator> values) {
-    try (ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        DataOutputStream dos = new DataOutputStream(baos)) {
-
-      for (Map.Entry<String, ByteIterator> entry : values.entrySet()) {
-        byte[] keyBytes = entry.getKey().getBytes(StandardCharsets.UTF_8);
-        ByteIterator it = entry.getValue();
-
-        byte[] valueBytes = it.toArray();  // 用 toArray() 替代手动遍历 next()
+  @Override
+  public Status batchInsert(String table, List<String> keys, List<Map<String, ByteIterator>> values) {
+    byte[][] serialized = new byte[values.size()][];
+    for (int i = 0; i < serialized.length; i++) {
+      serialized[i] = codec.encodeToArray(values.get(i));
+    }
+    int inserted = nativeBatchInsert(table, keys.toArray(new String[0]), serialized);
+    return inserted == keys.size() ? Status.OK : Status.ERROR;
+  }
 
-        dos.writeInt(keyBytes.length);
-        dos.write(keyBytes);
-        dos.writeInt(valueBytes.length);
-        dos.write(valueBytes);
-      }
+  @Override
+  public Status update(String table, String key, Map<String, ByteIterator> values) {
+    return update(table, key, values, 0);
+  }
 
-      dos.flush();
-      return baos.toByteArray();
-    } catch (IOException e) {
-      throw new RuntimeException("Serialization failed", e);
+  @Override
+  public Status update(String table, String key, Map<String, ByteIterator> values, int ttl) {
+    if (useDirectBuffer) {
+      directBuffer.clear();
+      directBuffer = codec.encode(values, directBuffer);
+      return nativeUpdateDirect(table, key, directBuffer, directBuffer.position(), ttl) ? Status.OK : Status.ERROR;
     }
+    int length = codec.encode(values);
+    return nativeUpdate(table, key, codec.buffer(), length, ttl) ? Status.OK : Status.ERROR;
   }
-  
 
-  /**
-   * Deserialize a byte array into a map of ByteIterator values.
-   */
-  private void deserialize(byte[] bytes, Set<String> fields, Map<String, ByteIterator> result) {
-    try (ByteArrayInputStream bais = new ByteArrayInputStream(bytes);
-         DataInputStream dis = new DataInputStream(bais)) {
-
-      while (dis.available() > 0) {
-        int keyLen = dis.readInt();
-        byte[] keyBytes = new byte[keyLen];
-        dis.readFully(keyBytes);
-        String key = new String(keyBytes, StandardCharsets.UTF_8);
-
-        int valLen = dis.readInt();
-        byte[] valBytes = new byte[valLen];
-        dis.readFully(valBytes);
-
-        if (fields == null || fields.contains(key)) {
-          result.put(key, new ByteArrayByteIterator(valBytes));
-        }
-      }
-    } catch (IOException e) {
-      throw new RuntimeException("Deserialization failed", e);
-    }
+  @Override
+  public Status delete(String table, String key) {
+    return nativeDelete(table, key) ? Status.OK : Status.ERROR;
   }
 
   @Override
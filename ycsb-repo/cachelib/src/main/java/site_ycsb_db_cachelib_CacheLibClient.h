@@ -10,10 +10,10 @@ extern "C" {
 /*
  * Class:     site_ycsb_db_cachelib_CacheLibClient
  * Method:    nativeInit
- * Signature: (Ljava/lang/String;)V
+ * Signature: (Ljava/lang/String;Z)V
  */
 JNIEXPORT void JNICALL Java_site_ycsb_db_cachelib_CacheLibClient_nativeInit
-  (JNIEnv *, jobject, jstring);
+  (JNIEnv *, jobject, jstring, jboolean);
 
 /*
  * Class:     site_ycsb_db_cachelib_CacheLibClient
@@ -26,10 +26,10 @@ JNIEXPORT void JNICALL Java_site_ycsb_db_cachelib_CacheLibClient_nativeCleanup
 /*
  * Class:     site_ycsb_db_cachelib_CacheLibClient
  * Method:    nativeInsert
- * Signature: (Ljava/lang/String;Ljava/lang/String;[B)Z
+ * Signature: (Ljava/lang/String;Ljava/lang/String;[BII)Z
  */
 JNIEXPORT jboolean JNICALL Java_site_ycsb_db_cachelib_CacheLibClient_nativeInsert
-  (JNIEnv *, jobject, jstring, jstring, jbyteArray);
+  (JNIEnv *, jobject, jstring, jstring, jbyteArray, jint, jint);
 
 /*
  * Class:     site_ycsb_db_cachelib_CacheLibClient
@@ -42,10 +42,10 @@ JNIEXPORT jbyteArray JNICALL Java_site_ycsb_db_cachelib_CacheLibClient_nativeRea
 /*
  * Class:     site_ycsb_db_cachelib_CacheLibClient
  * Method:    nativeUpdate
- * Signature: (Ljava/lang/String;Ljava/lang/String;[B)Z
+ * Signature: (Ljava/lang/String;Ljava/lang/String;[BII)Z
  */
 JNIEXPORT jboolean JNICALL Java_site_ycsb_db_cachelib_CacheLibClient_nativeUpdate
-  (JNIEnv *, jobject, jstring, jstring, jbyteArray);
+  (JNIEnv *, jobject, jstring, jstring, jbyteArray, jint, jint);
 
 /*
  * Class:     site_ycsb_db_cachelib_CacheLibClient
@@ -55,6 +55,62 @@ JNIEXPORT jboolean JNICALL Java_site_ycsb_db_cachelib_CacheLibClient_nativeUpdat
 JNIEXPORT jboolean JNICALL Java_site_ycsb_db_cachelib_CacheLibClient_nativeDelete
   (JNIEnv *, jobject, jstring, jstring);
 
+/*
+ * Class:     site_ycsb_db_cachelib_CacheLibClient
+ * Method:    nativeInsertDirect
+ * Signature: (Ljava/lang/String;Ljava/lang/String;Ljava/nio/ByteBuffer;II)Z
+ */
+JNIEXPORT jboolean JNICALL Java_site_ycsb_db_cachelib_CacheLibClient_nativeInsertDirect
+  (JNIEnv *, jobject, jstring, jstring, jobject, jint, jint);
+
+/*
+ * Class:     site_ycsb_db_cachelib_CacheLibClient
+ * Method:    nativeReadDirect
+ * Signature: (Ljava/lang/String;Ljava/lang/String;Ljava/nio/ByteBuffer;I)I
+ */
+JNIEXPORT jint JNICALL Java_site_ycsb_db_cachelib_CacheLibClient_nativeReadDirect
+  (JNIEnv *, jobject, jstring, jstring, jobject, jint);
+
+/*
+ * Class:     site_ycsb_db_cachelib_CacheLibClient
+ * Method:    nativeUpdateDirect
+ * Signature: (Ljava/lang/String;Ljava/lang/String;Ljava/nio/ByteBuffer;II)Z
+ */
+JNIEXPORT jboolean JNICALL Java_site_ycsb_db_cachelib_CacheLibClient_nativeUpdateDirect
+  (JNIEnv *, jobject, jstring, jstring, jobject, jint, jint);
+
+/*
+ * Class:     site_ycsb_db_cachelib_CacheLibClient
+ * Method:    nativeBatchRead
+ * Signature: (Ljava/lang/String;[Ljava/lang/String;)[[B
+ */
+JNIEXPORT jobjectArray JNICALL Java_site_ycsb_db_cachelib_CacheLibClient_nativeBatchRead
+  (JNIEnv *, jobject, jstring, jobjectArray);
+
+/*
+ * Class:     site_ycsb_db_cachelib_CacheLibClient
+ * Method:    nativeBatchInsert
+ * Signature: (Ljava/lang/String;[Ljava/lang/String;[[B)I
+ */
+JNIEXPORT jint JNICALL Java_site_ycsb_db_cachelib_CacheLibClient_nativeBatchInsert
+  (JNIEnv *, jobject, jstring, jobjectArray, jobjectArray);
+
+/*
+ * Class:     site_ycsb_db_cachelib_CacheLibClient
+ * Method:    nativePoolStats
+ * Signature: ()[J
+ */
+JNIEXPORT jlongArray JNICALL Java_site_ycsb_db_cachelib_CacheLibClient_nativePoolStats
+  (JNIEnv *, jobject);
+
+/*
+ * Class:     site_ycsb_db_cachelib_CacheLibClient
+ * Method:    nativeStats
+ * Signature: ()[J
+ */
+JNIEXPORT jlongArray JNICALL Java_site_ycsb_db_cachelib_CacheLibClient_nativeStats
+  (JNIEnv *, jobject);
+
 #ifdef __cplusplus
 }
 #endif
@@ -66,6 +66,16 @@ public abstract class ByteIterator implements Iterator<Byte> {
     return sz;
   }
 
+  /**
+   * Copies bytes into the remaining space of {@code buf}, advancing its position, until either is
+   * exhausted. Lets drivers fill direct buffers without an intermediate array.
+   */
+  public void nextBuf(ByteBuffer buf) {
+    while (buf.hasRemaining() && hasNext()) {
+      buf.put(nextByte());
+    }
+  }
+
   public abstract long bytesLeft();
 
   @Override
@@ -18,6 +18,7 @@
 package site.ycsb;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
@@ -102,6 +103,31 @@ public abstract class DB {
   public abstract Status scan(String table, String startkey, int recordcount, Set<String> fields,
                               Vector<HashMap<String, ByteIterator>> result);
 
+  /**
+   * Perform a range scan, handing each record to a visitor as it is read instead of collecting them.
+   * Bindings that can stream records or reuse their buffers should override this; the default
+   * implementation collects the records with {@link #scan(String, String, int, Set, Vector)} first.
+   *
+   * @param table The name of the table
+   * @param startkey The record key of the first record to read.
+   * @param recordcount The maximum number of records to read
+   * @param fields The list of fields to read, or null for all of them
+   * @param visitor Receives each record, and may end the scan early
+   * @return The result of the operation.
+   */
+  public Status scan(String table, String startkey, int recordcount, Set<String> fields, ScanVisitor visitor) {
+    Vector<HashMap<String, ByteIterator>> result = new Vector<>();
+    Status status = scan(table, startkey, recordcount, fields, result);
+    if (status.isOk()) {
+      for (HashMap<String, ByteIterator> values : result) {
+        if (!visitor.visit(values)) {
+          break;
+        }
+      }
+    }
+    return status;
+  }
+
   /**
    * Update a record in the database. Any field/value pairs in the specified values HashMap will be written into the
    * record with the specified record key, overwriting any existing values with the same field name.
@@ -124,6 +150,101 @@ public abstract class DB {
    */
   public abstract Status insert(String table, String key, Map<String, ByteIterator> values);
 
+  /**
+   * Update a record in the database and give it a time to live. Bindings whose store supports per-item
+   * expiration should override this; the default implementation ignores the TTL.
+   *
+   * @param table The name of the table
+   * @param key The record key of the record to write.
+   * @param values A HashMap of field/value pairs to update in the record
+   * @param ttl Time to live of the record in seconds, 0 for no expiration
+   * @return The result of the operation.
+   */
+  public Status update(String table, String key, Map<String, ByteIterator> values, int ttl) {
+    return update(table, key, values);
+  }
+
+  /**
+   * Insert a record in the database and give it a time to live. Bindings whose store supports per-item
+   * expiration should override this; the default implementation ignores the TTL.
+   *
+   * @param table The name of the table
+   * @param key The record key of the record to insert.
+   * @param values A HashMap of field/value pairs to insert in the record
+   * @param ttl Time to live of the record in seconds, 0 for no expiration
+   * @return The result of the operation.
+   */
+  public Status insert(String table, String key, Map<String, ByteIterator> values, int ttl) {
+    return insert(table, key, values);
+  }
+
+  /**
+   * Atomically read a record and update some of its fields, so no concurrent update is lost in between.
+   * Bindings with a conditional write, such as compare-and-swap, should override this; by default it is
+   * not implemented and the workload falls back to a read followed by an update.
+   *
+   * @param table The name of the table
+   * @param key The record key of the record to read and update.
+   * @param fields The list of fields to read, or null for all of them
+   * @param result A HashMap of field/value pairs for the result, as read before the update
+   * @param values A HashMap of field/value pairs to update in the record
+   * @param ttl Time to live of the record in seconds, 0 for the binding's default
+   * @return The result of the operation, NOT_IMPLEMENTED if the binding has no atomic read-modify-write.
+   */
+  public Status readModifyWrite(String table, String key, Set<String> fields, Map<String, ByteIterator> result,
+                                Map<String, ByteIterator> values, int ttl) {
+    return Status.NOT_IMPLEMENTED;
+  }
+
+  /**
+   * Read a batch of records from the database. Bindings that can fetch several keys in one round trip
+   * or native call should override this; the default implementation reads the keys one at a time.
+   *
+   * @param table The name of the table
+   * @param keys The record keys of the records to read.
+   * @param fields The list of fields to read, or null for all of them
+   * @param results A List that is filled with one HashMap of field/value pairs per key, in the order of
+   *                {@code keys}. Keys that were not found get a null entry.
+   * @return OK if every record was read, NOT_FOUND if some were missing, or the first other failure.
+   */
+  public Status batchRead(String table, List<String> keys, Set<String> fields,
+                          List<Map<String, ByteIterator>> results) {
+    Status status = Status.OK;
+    for (String key : keys) {
+      Map<String, ByteIterator> result = new HashMap<>();
+      Status res = read(table, key, fields, result);
+      if (res.isOk()) {
+        results.add(result);
+        continue;
+      }
+      results.add(null);
+      if (status.isOk() || (status == Status.NOT_FOUND && res != Status.NOT_FOUND)) {
+        status = res;
+      }
+    }
+    return status;
+  }
+
+  /**
+   * Insert a batch of records in the database. Bindings that can write several records in one round trip
+   * or native call should override this; the default implementation inserts the records one at a time.
+   *
+   * @param table The name of the table
+   * @param keys The record keys of the records to insert.
+   * @param values One HashMap of field/value pairs per key, in the order of {@code keys}
+   * @return OK if every record was inserted, otherwise the first failure.
+   */
+  public Status batchInsert(String table, List<String> keys, List<Map<String, ByteIterator>> values) {
+    Status status = Status.OK;
+    for (int i = 0; i < keys.size(); i++) {
+      Status res = insert(table, keys.get(i), values.get(i));
+      if (status.isOk() && !res.isOk()) {
+        status = res;
+      }
+    }
+    return status;
+  }
+
   /**
    * Delete a record from the database.
    *
@@ -33,13 +33,7 @@ public class DBWrapper extends DB {
   private final Measurements measurements;
   private final Tracer tracer;
 
-  private boolean reportLatencyForEachError = false;
-  private Set<String> latencyTrackedErrors = new HashSet<String>();
-
-  private static final String REPORT_LATENCY_FOR_EACH_ERROR_PROPERTY = "reportlatencyforeacherror";
-  private static final String REPORT_LATENCY_FOR_EACH_ERROR_PROPERTY_DEFAULT = "false";
-
-  private static final String LATENCY_TRACKED_ERRORS_PROPERTY = "latencytrackederrors";
+  private MeasurementNames measurementNames = new MeasurementNames(new Properties());
 
   private final String scopeStringCleanup;
   private final String scopeStringDelete;
@@ -48,6 +42,9 @@ public class DBWrapper extends DB {
   private final String scopeStringRead;
   private final String scopeStringScan;
   private final String scopeStringUpdate;
+  private final String scopeStringBatchRead;
+  private final String scopeStringBatchInsert;
+  private final String scopeStringReadModifyWrite;
 
   public DBWrapper(final DB db, final Tracer tracer) {
     this.db = db;
@@ -61,6 +58,9 @@ public class DBWrapper extends DB {
     scopeStringRead = simple + "#read";
     scopeStringScan = simple + "#scan";
     scopeStringUpdate = simple + "#update";
+    scopeStringBatchRead = simple + "#batchRead";
+    scopeStringBatchInsert = simple + "#batchInsert";
+    scopeStringReadModifyWrite = simple + "#readModifyWrite";
   }
 
   /**
@@ -85,21 +85,11 @@ public class DBWrapper extends DB {
     try (final TraceScope span = tracer.newScope(scopeStringInit)) {
       db.init();
 
-      this.reportLatencyForEachError = Boolean.parseBoolean(getProperties().
-          getProperty(REPORT_LATENCY_FOR_EACH_ERROR_PROPERTY,
-              REPORT_LATENCY_FOR_EACH_ERROR_PROPERTY_DEFAULT));
-
-      if (!reportLatencyForEachError) {
-        String latencyTrackedErrorsProperty = getProperties().getProperty(LATENCY_TRACKED_ERRORS_PROPERTY, null);
-        if (latencyTrackedErrorsProperty != null) {
-          this.latencyTrackedErrors = new HashSet<String>(Arrays.asList(
-              latencyTrackedErrorsProperty.split(",")));
-        }
-      }
+      this.measurementNames = new MeasurementNames(getProperties());
 
       System.err.println("DBWrapper: report latency for each error is " +
-          this.reportLatencyForEachError + " and specific error codes to track" +
-          " for latency are: " + this.latencyTrackedErrors.toString());
+          measurementNames.isReportLatencyForEachError() + " and specific error codes to track" +
+          " for latency are: " + measurementNames.getLatencyTrackedErrors().toString());
     }
   }
 
@@ -135,7 +125,7 @@ public class DBWrapper extends DB {
       Status res = db.read(table, key, fields, result);
       long en = System.nanoTime();
       measure("READ", res, ist, st, en);
-      measurements.reportStatus("READ", res);
+      reportStatus("READ", res);
       return res;
     }
   }
@@ -159,28 +149,137 @@ public class DBWrapper extends DB {
       Status res = db.scan(table, startkey, recordcount, fields, result);
       long en = System.nanoTime();
       measure("SCAN", res, ist, st, en);
-      measurements.reportStatus("SCAN", res);
+      reportStatus("SCAN", res);
+      return res;
+    }
+  }
+
+  /**
+   * Perform a range scan, handing each record to a visitor as it is read. Measured as "SCAN", like
+   * the collecting scan, including the time spent in the visitor.
+   *
+   * @param table The name of the table
+   * @param startkey The record key of the first record to read.
+   * @param recordcount The maximum number of records to read
+   * @param fields The list of fields to read, or null for all of them
+   * @param visitor Receives each record, and may end the scan early
+   * @return The result of the operation.
+   */
+  public Status scan(String table, String startkey, int recordcount,
+                     Set<String> fields, ScanVisitor visitor) {
+    try (final TraceScope span = tracer.newScope(scopeStringScan)) {
+      long ist = measurements.getIntendedtartTimeNs();
+      long st = System.nanoTime();
+      Status res = db.scan(table, startkey, recordcount, fields, visitor);
+      long en = System.nanoTime();
+      measure("SCAN", res, ist, st, en);
+      reportStatus("SCAN", res);
+      return res;
+    }
+  }
+
+  /**
+   * Read a batch of records from the database. The latency of the whole batch is reported as
+   * "BATCH-READ" and the latency amortized over its keys as "BATCH-READ-PER-KEY".
+   *
+   * @param table The name of the table
+   * @param keys The record keys of the records to read.
+   * @param fields The list of fields to read, or null for all of them
+   * @param results A List filled with one HashMap of field/value pairs per key, null for missing keys
+   * @return The result of the operation.
+   */
+  public Status batchRead(String table, List<String> keys, Set<String> fields,
+                          List<Map<String, ByteIterator>> results) {
+    try (final TraceScope span = tracer.newScope(scopeStringBatchRead)) {
+      long ist = measurements.getIntendedtartTimeNs();
+      long st = System.nanoTime();
+      Status res = db.batchRead(table, keys, fields, results);
+      long en = System.nanoTime();
+      measureBatch("BATCH-READ", res, keys.size(), ist, st, en);
+      reportStatus("BATCH-READ", res);
+      return res;
+    }
+  }
+
+  /**
+   * Insert a batch of records in the database. The latency of the whole batch is reported as
+   * "BATCH-INSERT" and the latency amortized over its keys as "BATCH-INSERT-PER-KEY".
+   *
+   * @param table The name of the table
+   * @param keys The record keys of the records to insert.
+   * @param values One HashMap of field/value pairs per key
+   * @return The result of the operation.
+   */
+  public Status batchInsert(String table, List<String> keys, List<Map<String, ByteIterator>> values) {
+    try (final TraceScope span = tracer.newScope(scopeStringBatchInsert)) {
+      long ist = measurements.getIntendedtartTimeNs();
+      long st = System.nanoTime();
+      Status res = db.batchInsert(table, keys, values);
+      long en = System.nanoTime();
+      measureBatch("BATCH-INSERT", res, keys.size(), ist, st, en);
+      reportStatus("BATCH-INSERT", res);
+      return res;
+    }
+  }
+
+  /**
+   * Atomically read a record and update some of its fields. The latency is measured by the workload as
+   * "READ-MODIFY-WRITE", as for the read and update it falls back to when the binding returns
+   * NOT_IMPLEMENTED; only the result is reported here.
+   *
+   * @param table The name of the table
+   * @param key The record key of the record to read and update.
+   * @param fields The list of fields to read, or null for all of them
+   * @param result A HashMap of field/value pairs for the result
+   * @param values A HashMap of field/value pairs to update in the record
+   * @param ttl Time to live of the record in seconds, 0 for the binding's default
+   * @return The result of the operation.
+   */
+  public Status readModifyWrite(String table, String key, Set<String> fields, Map<String, ByteIterator> result,
+                                Map<String, ByteIterator> values, int ttl) {
+    try (final TraceScope span = tracer.newScope(scopeStringReadModifyWrite)) {
+      Status res = db.readModifyWrite(table, key, fields, result, values, ttl);
+      if (res != Status.NOT_IMPLEMENTED) {
+        reportStatus("READ-MODIFY-WRITE", res);
+      }
       return res;
     }
   }
 
+  private void reportStatus(String op, Status result) {
+    if (result != Status.PENDING) {
+      measurements.reportStatus(op, result);
+    }
+  }
+
+  /**
+   * Operations the binding returned {@link Status#PENDING} for are measured by the binding once they
+   * complete, see {@link PendingOperation}.
+   */
   private void measure(String op, Status result, long intendedStartTimeNanos,
                        long startTimeNanos, long endTimeNanos) {
-    String measurementName = op;
-    if (result == null || !result.isOk()) {
-      if (this.reportLatencyForEachError ||
-          this.latencyTrackedErrors.contains(result.getName())) {
-        measurementName = op + "-" + result.getName();
-      } else {
-        measurementName = op + "-FAILED";
-      }
+    if (result == Status.PENDING) {
+      return;
     }
+    String measurementName = measurementNames.of(op, result);
     measurements.measure(measurementName,
         (int) ((endTimeNanos - startTimeNanos) / 1000));
     measurements.measureIntended(measurementName,
         (int) ((endTimeNanos - intendedStartTimeNanos) / 1000));
   }
 
+  private void measureBatch(String op, Status result, int batchSize, long intendedStartTimeNanos,
+                            long startTimeNanos, long endTimeNanos) {
+    measure(op, result, intendedStartTimeNanos, startTimeNanos, endTimeNanos);
+    if (batchSize > 0 && result != Status.PENDING) {
+      String measurementName = measurementNames.of(op + "-PER-KEY", result);
+      measurements.measure(measurementName,
+          (int) ((endTimeNanos - startTimeNanos) / 1000 / batchSize));
+      measurements.measureIntended(measurementName,
+          (int) ((endTimeNanos - intendedStartTimeNanos) / 1000 / batchSize));
+    }
+  }
+
   /**
    * Update a record in the database. Any field/value pairs in the specified values HashMap will be written into the
    * record with the specified record key, overwriting any existing values with the same field name.
@@ -198,7 +297,7 @@ public class DBWrapper extends DB {
       Status res = db.update(table, key, values);
       long en = System.nanoTime();
       measure("UPDATE", res, ist, st, en);
-      measurements.reportStatus("UPDATE", res);
+      reportStatus("UPDATE", res);
       return res;
     }
   }
@@ -221,7 +320,53 @@ public class DBWrapper extends DB {
       Status res = db.insert(table, key, values);
       long en = System.nanoTime();
       measure("INSERT", res, ist, st, en);
-      measurements.reportStatus("INSERT", res);
+      reportStatus("INSERT", res);
+      return res;
+    }
+  }
+
+  /**
+   * Update a record in the database with a time to live. Measured as "UPDATE", like
+   * {@link #update(String, String, Map)}.
+   *
+   * @param table The name of the table
+   * @param key The record key of the record to write.
+   * @param values A HashMap of field/value pairs to update in the record
+   * @param ttl Time to live of the record in seconds, 0 for no expiration
+   * @return The result of the operation.
+   */
+  public Status update(String table, String key,
+                       Map<String, ByteIterator> values, int ttl) {
+    try (final TraceScope span = tracer.newScope(scopeStringUpdate)) {
+      long ist = measurements.getIntendedtartTimeNs();
+      long st = System.nanoTime();
+      Status res = db.update(table, key, values, ttl);
+      long en = System.nanoTime();
+      measure("UPDATE", res, ist, st, en);
+      reportStatus("UPDATE", res);
+      return res;
+    }
+  }
+
+  /**
+   * Insert a record in the database with a time to live. Measured as "INSERT", like
+   * {@link #insert(String, String, Map)}.
+   *
+   * @param table The name of the table
+   * @param key The record key of the record to insert.
+   * @param values A HashMap of field/value pairs to insert in the record
+   * @param ttl Time to live of the record in seconds, 0 for no expiration
+   * @return The result of the operation.
+   */
+  public Status insert(String table, String key,
+                       Map<String, ByteIterator> values, int ttl) {
+    try (final TraceScope span = tracer.newScope(scopeStringInsert)) {
+      long ist = measurements.getIntendedtartTimeNs();
+      long st = System.nanoTime();
+      Status res = db.insert(table, key, values, ttl);
+      long en = System.nanoTime();
+      measure("INSERT", res, ist, st, en);
+      reportStatus("INSERT", res);
       return res;
     }
   }
@@ -240,7 +385,7 @@ public class DBWrapper extends DB {
       Status res = db.delete(table, key);
       long en = System.nanoTime();
       measure("DELETE", res, ist, st, en);
-      measurements.reportStatus("DELETE", res);
+      reportStatus("DELETE", res);
       return res;
     }
   }
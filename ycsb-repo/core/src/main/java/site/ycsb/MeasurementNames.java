@@ -0,0 +1,73 @@
+/**
+ * Copyright (c) 2026 YCSB contributors. All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package site.ycsb;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * Names the latency measurement of an operation by its status: the operation name if it succeeded, and
+ * &lt;OPERATION&gt;-&lt;STATUS&gt; or &lt;OPERATION&gt;-FAILED if it failed, depending on the
+ * reportlatencyforeacherror and latencytrackederrors properties. Shared by {@link DBWrapper} and
+ * {@link PendingOperation}, so that operations measured by a binding are named alike.
+ */
+public final class MeasurementNames {
+
+  public static final String REPORT_LATENCY_FOR_EACH_ERROR_PROPERTY = "reportlatencyforeacherror";
+  public static final String REPORT_LATENCY_FOR_EACH_ERROR_PROPERTY_DEFAULT = "false";
+
+  public static final String LATENCY_TRACKED_ERRORS_PROPERTY = "latencytrackederrors";
+
+  private final boolean reportLatencyForEachError;
+  private final Set<String> latencyTrackedErrors;
+
+  public MeasurementNames(Properties properties) {
+    reportLatencyForEachError = Boolean.parseBoolean(properties.getProperty(
+        REPORT_LATENCY_FOR_EACH_ERROR_PROPERTY, REPORT_LATENCY_FOR_EACH_ERROR_PROPERTY_DEFAULT));
+    String latencyTrackedErrorsProperty = properties.getProperty(LATENCY_TRACKED_ERRORS_PROPERTY, null);
+    if (!reportLatencyForEachError && latencyTrackedErrorsProperty != null) {
+      latencyTrackedErrors = new HashSet<String>(Arrays.asList(latencyTrackedErrorsProperty.split(",")));
+    } else {
+      latencyTrackedErrors = new HashSet<String>();
+    }
+  }
+
+  public boolean isReportLatencyForEachError() {
+    return reportLatencyForEachError;
+  }
+
+  public Set<String> getLatencyTrackedErrors() {
+    return latencyTrackedErrors;
+  }
+
+  /**
+   * @return the name to measure the latency of {@code op} under, given its result.
+   */
+  public String of(String op, Status result) {
+    if (result == null || !result.isOk()) {
+      if (reportLatencyForEachError || latencyTrackedErrors.contains(result.getName())) {
+        return op + "-" + result.getName();
+      } else {
+        return op + "-FAILED";
+      }
+    }
+    return op;
+  }
+}
@@ -0,0 +1,65 @@
+/**
+ * Copyright (c) 2026 YCSB contributors. All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+package site.ycsb;
+
+import site.ycsb.measurements.Measurements;
+
+/**
+ * An operation a binding issued without waiting for its result. The binding returns {@link Status#PENDING}
+ * so that {@link DBWrapper} does not measure the call, and completes the operation once the result
+ * arrives, possibly on another thread. Its latency is then measured from issue to completion, under the
+ * name DBWrapper would have used, see {@link MeasurementNames}.
+ */
+public final class PendingOperation {
+
+  private final String operation;
+  private final MeasurementNames names;
+  private final long intendedStartTimeNanos;
+  private final long startTimeNanos;
+
+  private PendingOperation(String operation, MeasurementNames names, long intendedStartTimeNanos,
+                           long startTimeNanos) {
+    this.operation = operation;
+    this.names = names;
+    this.intendedStartTimeNanos = intendedStartTimeNanos;
+    this.startTimeNanos = startTimeNanos;
+  }
+
+  /**
+   * Starts an operation. Must be called on the client thread issuing it, which holds its intended start time,
+   * right before it is sent: any wait before that only counts towards the intended latency.
+   *
+   * @param operation The measurement name of the operation, e.g. "READ".
+   * @param names The names of failed operations, from the binding's properties.
+   */
+  public static PendingOperation start(String operation, MeasurementNames names) {
+    return new PendingOperation(operation, names, Measurements.getMeasurements().getIntendedtartTimeNs(),
+        System.nanoTime());
+  }
+
+  /**
+   * Measures the operation and counts its status.
+   */
+  public void complete(Status status) {
+    final long endTimeNanos = System.nanoTime();
+    final Measurements measurements = Measurements.getMeasurements();
+    final String name = names.of(operation, status);
+    measurements.measure(name, (int) ((endTimeNanos - startTimeNanos) / 1000));
+    measurements.measureIntended(name, (int) ((endTimeNanos - intendedStartTimeNanos) / 1000));
+    measurements.reportStatus(operation, status);
+  }
+}
@@ -0,0 +1,310 @@
+/**
+ * Copyright (c) 2026 YCSB contributors. All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+package site.ycsb;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Binary encoding of a record's field/value pairs, shared by the bindings that store a record as a
+ * single value. Each field is laid out as a big-endian int name length, the UTF-8 name, a big-endian
+ * int value length and the value bytes.
+ * <p>
+ * Encoding writes into a buffer owned by the codec and reused by the next call, so a write allocates
+ * nothing once the buffer has grown to the record size, or straight into a caller's ByteBuffer.
+ * Decoding does not copy values out of the source array: results are {@link ByteArrayByteIterator}
+ * views, so a value is only materialized if the caller reads it, and fields that were not requested
+ * are skipped. Field names are cached in both directions.
+ * <p>
+ * A codec is not thread safe. Bindings keep one per DB instance, which is used by a single client
+ * thread, or use {@link #get()}.
+ */
+public final class RecordCodec {
+
+  private static final int DEFAULT_CAPACITY = 4096;
+
+  /** Upper bound on the entries of each field name cache; workloads use a handful of names. */
+  private static final int MAX_CACHED_NAMES = 256;
+
+  private static final ConcurrentMap<String, byte[]> ENCODED_NAMES = new ConcurrentHashMap<>();
+
+  private static final ThreadLocal<RecordCodec> THREAD_CODEC = new ThreadLocal<RecordCodec>() {
+    @Override
+    protected RecordCodec initialValue() {
+      return new RecordCodec();
+    }
+  };
+
+  private byte[] buffer;
+  private int length;
+
+  private byte[] decodeBuffer = new byte[0];
+  private String[] decodedNames = new String[16];
+  private byte[][] decodedNameBytes = new byte[16][];
+  private int decodedNameCount;
+
+  public RecordCodec() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  public RecordCodec(int initialCapacity) {
+    buffer = new byte[Math.max(initialCapacity, 16)];
+  }
+
+  /**
+   * @return the codec of the calling thread.
+   */
+  public static RecordCodec get() {
+    return THREAD_CODEC.get();
+  }
+
+  /**
+   * Encodes a record into this codec's buffer, consuming the value iterators.
+   *
+   * @param values The field/value pairs of the record.
+   * @return the encoded length; the record occupies {@code buffer()[0, length)} until the next call.
+   */
+  public int encode(Map<String, ByteIterator> values) {
+    return encode(values, 0);
+  }
+
+  /**
+   * Encodes a record after {@code offset} bytes of headroom, which the caller may fill in, e.g. with a
+   * frame header.
+   *
+   * @return the end of the record in {@code buffer()}; the headroom is not initialized.
+   */
+  public int encode(Map<String, ByteIterator> values, int offset) {
+    ensureCapacity(offset);
+    int pos = offset;
+    for (Map.Entry<String, ByteIterator> entry : values.entrySet()) {
+      final byte[] name = encodeName(entry.getKey());
+      final ByteIterator value = entry.getValue();
+      ensureCapacity(pos + 8 + name.length + (int) Math.min(value.bytesLeft(), Integer.MAX_VALUE - 64));
+
+      putInt(buffer, pos, name.length);
+      pos += 4;
+      System.arraycopy(name, 0, buffer, pos, name.length);
+      pos += name.length;
+
+      // The value length is written once the value is copied, so iterators whose size is only an
+      // estimate are still encoded correctly.
+      final int valueStart = pos + 4;
+      int valueEnd = valueStart;
+      while (value.hasNext()) {
+        if (valueEnd == buffer.length) {
+          ensureCapacity(buffer.length + 1);
+        }
+        valueEnd = value.nextBuf(buffer, valueEnd);
+      }
+      putInt(buffer, pos, valueEnd - valueStart);
+      pos = valueEnd;
+    }
+    length = pos;
+    return pos;
+  }
+
+  /**
+   * Encodes a record straight into a buffer, from its position on, so a direct buffer is filled without
+   * going through this codec's array. If the record does not fit, it continues in a larger buffer of the
+   * same kind holding what was written so far.
+   *
+   * @param dst The big-endian buffer to encode into.
+   * @return the buffer holding the record, {@code dst} unless it had to grow, with its position at the
+   *     end of the record.
+   */
+  public ByteBuffer encode(Map<String, ByteIterator> values, ByteBuffer dst) {
+    ByteBuffer out = dst;
+    for (Map.Entry<String, ByteIterator> entry : values.entrySet()) {
+      final byte[] name = encodeName(entry.getKey());
+      final ByteIterator value = entry.getValue();
+      out = ensureRemaining(out, 8 + name.length + (int) Math.min(value.bytesLeft(), Integer.MAX_VALUE - 64));
+
+      out.putInt(name.length);
+      out.put(name);
+      final int lengthPos = out.position();
+      out.position(lengthPos + 4);
+      while (value.hasNext()) {
+        if (!out.hasRemaining()) {
+          out = ensureRemaining(out, 1);
+        }
+        value.nextBuf(out);
+      }
+      out.putInt(lengthPos, out.position() - lengthPos - 4);
+    }
+    return out;
+  }
+
+  /**
+   * Encodes a record into a new array of exactly the encoded size.
+   */
+  public byte[] encodeToArray(Map<String, ByteIterator> values) {
+    final int len = encode(values);
+    return Arrays.copyOf(buffer, len);
+  }
+
+  /**
+   * @return the buffer holding the last encoded record, valid until the next call to encode.
+   */
+  public byte[] buffer() {
+    return buffer;
+  }
+
+  /**
+   * @return the end of the last encoded record in {@code buffer()}, its length unless encoded with headroom.
+   */
+  public int length() {
+    return length;
+  }
+
+  /**
+   * Decodes a whole array, see {@link #decode(byte[], int, int, Set, Map)}.
+   */
+  public void decode(byte[] data, Set<String> fields, Map<String, ByteIterator> result) {
+    decode(data, 0, data.length, fields, result);
+  }
+
+  /**
+   * Decodes a record without copying its values. The iterators put into {@code result} read
+   * {@code data} directly, so the caller must not reuse it while the result is in use.
+   *
+   * @param data The array holding the encoded record.
+   * @param offset The start of the record in {@code data}.
+   * @param len The length of the record.
+   * @param fields The fields to decode, or null for all of them.
+   * @param result The map the requested fields are put into.
+   */
+  public void decode(byte[] data, int offset, int len, Set<String> fields, Map<String, ByteIterator> result) {
+    final int end = offset + len;
+    int pos = offset;
+    while (pos < end) {
+      final int nameLen = getInt(data, pos);
+      pos += 4;
+      final String name = decodeName(data, pos, nameLen);
+      pos += nameLen;
+      final int valueLen = getInt(data, pos);
+      pos += 4;
+      if (fields == null || fields.contains(name)) {
+        result.put(name, new ByteArrayByteIterator(data, pos, valueLen));
+      }
+      pos += valueLen;
+    }
+  }
+
+  /**
+   * Decodes the record between the buffer's position and limit, leaving the position at the limit.
+   * Heap buffers are decoded as views like arrays. Direct buffers, which are typically reused by the next
+   * operation, are copied in one go into an array of this codec that is reused by the next call, and
+   * decoded as views over it, so the result is only valid until this codec decodes the next direct buffer.
+   */
+  public void decode(ByteBuffer src, Set<String> fields, Map<String, ByteIterator> result) {
+    if (src.hasArray()) {
+      decode(src.array(), src.arrayOffset() + src.position(), src.remaining(), fields, result);
+      src.position(src.limit());
+      return;
+    }
+    final int len = src.remaining();
+    if (len > decodeBuffer.length) {
+      decodeBuffer = new byte[Math.max(len, decodeBuffer.length * 2)];
+    }
+    src.get(decodeBuffer, 0, len);
+    decode(decodeBuffer, 0, len, fields, result);
+  }
+
+  private static byte[] encodeName(String name) {
+    byte[] bytes = ENCODED_NAMES.get(name);
+    if (bytes == null) {
+      bytes = name.getBytes(UTF_8);
+      if (ENCODED_NAMES.size() < MAX_CACHED_NAMES) {
+        ENCODED_NAMES.putIfAbsent(name, bytes);
+      }
+    }
+    return bytes;
+  }
+
+  private String decodeName(byte[] data, int offset, int len) {
+    for (int i = 0; i < decodedNameCount; i++) {
+      if (equalsRange(decodedNameBytes[i], data, offset, len)) {
+        return decodedNames[i];
+      }
+    }
+    final String name = new String(data, offset, len, UTF_8);
+    if (decodedNameCount < MAX_CACHED_NAMES) {
+      if (decodedNameCount == decodedNames.length) {
+        decodedNames = Arrays.copyOf(decodedNames, decodedNameCount * 2);
+        decodedNameBytes = Arrays.copyOf(decodedNameBytes, decodedNameCount * 2);
+      }
+      decodedNames[decodedNameCount] = name;
+      decodedNameBytes[decodedNameCount] = Arrays.copyOfRange(data, offset, offset + len);
+      decodedNameCount++;
+    }
+    return name;
+  }
+
+  private static boolean equalsRange(byte[] name, byte[] data, int offset, int len) {
+    if (name.length != len) {
+      return false;
+    }
+    for (int i = 0; i < len; i++) {
+      if (name[i] != data[offset + i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private void ensureCapacity(int needed) {
+    if (needed > buffer.length) {
+      buffer = Arrays.copyOf(buffer, Math.max(needed, buffer.length * 2));
+    }
+  }
+
+  private static ByteBuffer ensureRemaining(ByteBuffer buf, int needed) {
+    if (needed <= buf.remaining()) {
+      return buf;
+    }
+    final int capacity = Math.max(buf.position() + needed, buf.capacity() * 2);
+    final ByteBuffer grown = buf.isDirect() ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+    buf.flip();
+    grown.put(buf);
+    return grown;
+  }
+
+  /**
+   * Writes a big-endian int, the byte order of the length fields.
+   */
+  public static void putInt(byte[] dst, int pos, int value) {
+    dst[pos] = (byte) (value >>> 24);
+    dst[pos + 1] = (byte) (value >>> 16);
+    dst[pos + 2] = (byte) (value >>> 8);
+    dst[pos + 3] = (byte) value;
+  }
+
+  /**
+   * Reads a big-endian int, the byte order of the length fields.
+   */
+  public static int getInt(byte[] src, int pos) {
+    return ((src[pos] & 0xff) << 24) | ((src[pos + 1] & 0xff) << 16)
+        | ((src[pos + 2] & 0xff) << 8) | (src[pos + 3] & 0xff);
+  }
+}
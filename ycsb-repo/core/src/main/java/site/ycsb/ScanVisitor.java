@@ -0,0 +1,35 @@
+/**
+ * Copyright (c) 2026 YCSB contributors. All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+package site.ycsb;
+
+import java.util.Map;
+
+/**
+ * Receives the records of a streaming scan, see
+ * {@link DB#scan(String, String, int, java.util.Set, ScanVisitor)}.
+ */
+public interface ScanVisitor {
+
+  /**
+   * Called once per record, in key order.
+   *
+   * @param values The field/value pairs of the record. The map and its iterators may be reused for the
+   *               next record, so they are only valid until this method returns.
+   * @return true to continue with the next record, false to end the scan.
+   */
+  boolean visit(Map<String, ByteIterator> values);
+}
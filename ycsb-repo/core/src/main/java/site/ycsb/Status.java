@@ -106,5 +106,8 @@ public class Status {
       "service for the current binding is not available.");
   public static final Status BATCHED_OK = new Status("BATCHED_OK", "The operation has been batched by " +
       "the binding to be executed later.");
+  /** Not {@link #isOk()}, as its outcome is unknown; callers that carry on with it check for it explicitly. */
+  public static final Status PENDING = new Status("PENDING", "The operation has been issued without " +
+      "waiting for it, the binding measures it on completion through a PendingOperation.");
 }
 
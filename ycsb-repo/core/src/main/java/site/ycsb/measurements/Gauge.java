@@ -0,0 +1,59 @@
+/**
+ * Copyright (c) 2026 YCSB contributors. All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+package site.ycsb.measurements;
+
+import site.ycsb.measurements.exporter.MeasurementsExporter;
+
+import java.io.IOException;
+
+/**
+ * Samples of a level, such as a cache's memory use or a queue length, see {@link Measurements#gauge}.
+ * Exported as the last, minimum, maximum and average sample rather than as a latency histogram.
+ */
+final class Gauge {
+
+  private final String name;
+  private long samples;
+  private long last;
+  private long min = Long.MAX_VALUE;
+  private long max = Long.MIN_VALUE;
+  private long sum;
+
+  Gauge(String name) {
+    this.name = name;
+  }
+
+  synchronized void sample(long value) {
+    samples++;
+    last = value;
+    min = Math.min(min, value);
+    max = Math.max(max, value);
+    sum += value;
+  }
+
+  synchronized void export(MeasurementsExporter exporter) throws IOException {
+    exporter.write(name, "Samples", samples);
+    exporter.write(name, "Last", last);
+    exporter.write(name, "Min", min);
+    exporter.write(name, "Max", max);
+    exporter.write(name, "Average", (double) sum / samples);
+  }
+
+  synchronized String getSummary() {
+    return "[" + name + ": Last=" + last + "]";
+  }
+}
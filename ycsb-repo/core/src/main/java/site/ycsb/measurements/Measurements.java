@@ -22,10 +22,13 @@ import site.ycsb.measurements.exporter.MeasurementsExporter;
 
 import java.io.IOException;
 import java.util.Properties;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
- * Collects latency measurements, and reports them when requested.
+ * Collects latency measurements, and reports them when requested. Counters and gauges, such as the
+ * statistics a store keeps, are collected next to them but not as latencies.
  */
 public class Measurements {
   /**
@@ -68,6 +71,8 @@ public class Measurements {
 
   private final ConcurrentHashMap<String, OneMeasurement> opToMesurementMap;
   private final ConcurrentHashMap<String, OneMeasurement> opToIntendedMesurementMap;
+  private final ConcurrentHashMap<String, LongAdder> counters;
+  private final ConcurrentHashMap<String, Gauge> gauges;
   private final MeasurementType measurementType;
   private final int measurementInterval;
   private final Properties props;
@@ -78,6 +83,8 @@ public class Measurements {
   public Measurements(Properties props) {
     opToMesurementMap = new ConcurrentHashMap<>();
     opToIntendedMesurementMap = new ConcurrentHashMap<>();
+    counters = new ConcurrentHashMap<>();
+    gauges = new ConcurrentHashMap<>();
 
     this.props = props;
 
@@ -239,6 +246,22 @@ public class Measurements {
     return m;
   }
 
+  /**
+   * Add to a counter, such as the number of cache misses or retries. Counters are exported as their
+   * total, whatever the measurement type and interval.
+   */
+  public void count(String counter, long delta) {
+    counters.computeIfAbsent(counter, c -> new LongAdder()).add(delta);
+  }
+
+  /**
+   * Report the current value of a gauge, such as memory in use or the number of files at a level.
+   * Gauges are exported as the last, minimum, maximum and average of the values reported.
+   */
+  public void gauge(String gauge, long value) {
+    gauges.computeIfAbsent(gauge, Gauge::new).sample(value);
+  }
+
   /**
    * Report a return code for a single DB operation.
    */
@@ -262,6 +285,12 @@ public class Measurements {
     for (OneMeasurement measurement : opToIntendedMesurementMap.values()) {
       measurement.exportMeasurements(exporter);
     }
+    for (Map.Entry<String, LongAdder> counter : counters.entrySet()) {
+      exporter.write(counter.getKey(), "Total", counter.getValue().sum());
+    }
+    for (Gauge gauge : gauges.values()) {
+      gauge.export(exporter);
+    }
   }
 
   /**
@@ -275,6 +304,12 @@ public class Measurements {
     for (OneMeasurement m : opToIntendedMesurementMap.values()) {
       ret += m.getSummary() + " ";
     }
+    for (Map.Entry<String, LongAdder> counter : counters.entrySet()) {
+      ret += "[" + counter.getKey() + ": Total=" + counter.getValue().sum() + "] ";
+    }
+    for (Gauge gauge : gauges.values()) {
+      ret += gauge.getSummary() + " ";
+    }
     return ret;
   }
 
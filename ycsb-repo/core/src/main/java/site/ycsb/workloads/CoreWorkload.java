@@ -63,6 +63,16 @@ import java.util.*;
  * order ("hashed") (default: hashed)
  * <LI><b>fieldnameprefix</b>: what should be a prefix for field names, the shorter may decrease the
  * required storage size (default: "field")
+ * <LI><b>batchsize</b>: how many keys each transaction read and insert groups into one batched
+ * call (default: 1, no batching)
+ * <LI><b>streamingscan</b>: whether scans hand each record to a visitor as it is read instead of
+ * collecting all of them first (default: false)
+ * <LI><b>ttldistribution</b>: what distribution should be used to choose the time to live of each
+ * inserted or updated record - none, constant, uniform or zipfian (favoring short TTLs). Batched
+ * inserts are written without a TTL. (default: none)
+ * <LI><b>ttl</b>: the maximum time to live in seconds, and the TTL of every record for the constant
+ * distribution (default: 3600)
+ * <LI><b>minttl</b>: the minimum time to live in seconds (default: 1)
  * </ul>
  */
 public class CoreWorkload extends Workload {
@@ -341,6 +351,58 @@ public class CoreWorkload extends Workload {
    */
   public static final String FIELD_NAME_PREFIX_DEFAULT = "field";
 
+  /**
+   * The name of the property for the number of keys grouped into one batched read or insert
+   * during the transaction phase.
+   */
+  public static final String BATCH_SIZE_PROPERTY = "batchsize";
+
+  /**
+   * Default batch size, every read and insert operates on a single key.
+   */
+  public static final String BATCH_SIZE_PROPERTY_DEFAULT = "1";
+
+  /**
+   * The name of the property for deciding whether scans stream their records to a visitor.
+   */
+  public static final String STREAMING_SCAN_PROPERTY = "streamingscan";
+
+  /**
+   * Default value of the streaming scan property, scans collect their records.
+   */
+  public static final String STREAMING_SCAN_PROPERTY_DEFAULT = "false";
+
+  /**
+   * The name of the property for the TTL distribution of inserted and updated records. Options are
+   * "none", "constant", "uniform" and "zipfian".
+   */
+  public static final String TTL_DISTRIBUTION_PROPERTY = "ttldistribution";
+
+  /**
+   * The default TTL distribution, records never expire.
+   */
+  public static final String TTL_DISTRIBUTION_PROPERTY_DEFAULT = "none";
+
+  /**
+   * The name of the property for the maximum TTL of a record, in seconds.
+   */
+  public static final String TTL_PROPERTY = "ttl";
+
+  /**
+   * The default maximum TTL of a record, in seconds.
+   */
+  public static final String TTL_PROPERTY_DEFAULT = "3600";
+
+  /**
+   * The name of the property for the minimum TTL of a record, in seconds.
+   */
+  public static final String MIN_TTL_PROPERTY = "minttl";
+
+  /**
+   * The default minimum TTL of a record, in seconds.
+   */
+  public static final String MIN_TTL_PROPERTY_DEFAULT = "1";
+
   protected NumberGenerator keysequence;
   protected DiscreteGenerator operationchooser;
   protected NumberGenerator keychooser;
@@ -353,6 +415,13 @@ public class CoreWorkload extends Workload {
   protected int zeropadding;
   protected int insertionRetryLimit;
   protected int insertionRetryInterval;
+  protected int batchsize;
+  protected boolean streamingscan;
+
+  /**
+   * Generator for record TTLs in seconds, or null if records do not expire.
+   */
+  protected NumberGenerator ttlgenerator;
 
   private Measurements measurements = Measurements.getMeasurements();
 
@@ -386,6 +455,27 @@ public class CoreWorkload extends Workload {
     return fieldlengthgenerator;
   }
 
+  protected static NumberGenerator getTtlGenerator(Properties p) throws WorkloadException {
+    String ttldistribution = p.getProperty(TTL_DISTRIBUTION_PROPERTY, TTL_DISTRIBUTION_PROPERTY_DEFAULT);
+    int ttl = Integer.parseInt(p.getProperty(TTL_PROPERTY, TTL_PROPERTY_DEFAULT));
+    int minttl = Integer.parseInt(p.getProperty(MIN_TTL_PROPERTY, MIN_TTL_PROPERTY_DEFAULT));
+    if (ttldistribution.compareTo("none") == 0) {
+      return null;
+    }
+    if (minttl < 1 || ttl < minttl) {
+      throw new WorkloadException("Invalid TTL range [" + minttl + ", " + ttl + "]");
+    }
+    if (ttldistribution.compareTo("constant") == 0) {
+      return new ConstantIntegerGenerator(ttl);
+    } else if (ttldistribution.compareTo("uniform") == 0) {
+      return new UniformLongGenerator(minttl, ttl);
+    } else if (ttldistribution.compareTo("zipfian") == 0) {
+      return new ZipfianGenerator(minttl, ttl);
+    } else {
+      throw new WorkloadException("Unknown TTL distribution \"" + ttldistribution + "\"");
+    }
+  }
+
   /**
    * Initialize the scenario.
    * Called once, in the main client thread, before any operations are started.
@@ -402,6 +492,7 @@ public class CoreWorkload extends Workload {
       fieldnames.add(fieldnameprefix + i);
     }
     fieldlengthgenerator = CoreWorkload.getFieldLengthGenerator(p);
+    ttlgenerator = CoreWorkload.getTtlGenerator(p);
 
     recordcount =
         Long.parseLong(p.getProperty(Client.RECORD_COUNT_PROPERTY, Client.DEFAULT_RECORD_COUNT));
@@ -512,6 +603,13 @@ public class CoreWorkload extends Workload {
         INSERTION_RETRY_LIMIT, INSERTION_RETRY_LIMIT_DEFAULT));
     insertionRetryInterval = Integer.parseInt(p.getProperty(
         INSERTION_RETRY_INTERVAL, INSERTION_RETRY_INTERVAL_DEFAULT));
+
+    batchsize = Integer.parseInt(p.getProperty(BATCH_SIZE_PROPERTY, BATCH_SIZE_PROPERTY_DEFAULT));
+    if (batchsize < 1) {
+      throw new WorkloadException("Invalid " + BATCH_SIZE_PROPERTY + " \"" + batchsize + "\", must be at least 1");
+    }
+    streamingscan = Boolean.parseBoolean(
+        p.getProperty(STREAMING_SCAN_PROPERTY, STREAMING_SCAN_PROPERTY_DEFAULT));
   }
 
   protected String buildKeyName(long keynum) {
@@ -598,8 +696,9 @@ public class CoreWorkload extends Workload {
     Status status;
     int numOfRetries = 0;
     do {
-      status = db.insert(table, dbkey, values);
-      if (null != status && status.isOk()) {
+      status = insert(db, dbkey, values);
+      // a pipelined insert is measured and counted by the binding once it completes
+      if (null != status && (status.isOk() || status == Status.PENDING)) {
         break;
       }
       // Retry if configured. Without retrying, the load process will fail
@@ -623,7 +722,27 @@ public class CoreWorkload extends Workload {
       }
     } while (true);
 
-    return null != status && status.isOk();
+    return null != status && (status.isOk() || status == Status.PENDING);
+  }
+
+  /**
+   * Inserts a record, with a TTL drawn from the TTL distribution if one is configured.
+   */
+  private Status insert(DB db, String dbkey, HashMap<String, ByteIterator> values) {
+    if (ttlgenerator == null) {
+      return db.insert(table, dbkey, values);
+    }
+    return db.insert(table, dbkey, values, ttlgenerator.nextValue().intValue());
+  }
+
+  /**
+   * Updates a record, with a TTL drawn from the TTL distribution if one is configured.
+   */
+  private Status update(DB db, String dbkey, HashMap<String, ByteIterator> values) {
+    if (ttlgenerator == null) {
+      return db.update(table, dbkey, values);
+    }
+    return db.update(table, dbkey, values, ttlgenerator.nextValue().intValue());
   }
 
   /**
@@ -641,13 +760,21 @@ public class CoreWorkload extends Workload {
 
     switch (operation) {
     case "READ":
-      doTransactionRead(db);
+      if (batchsize > 1) {
+        doTransactionBatchRead(db);
+      } else {
+        doTransactionRead(db);
+      }
       break;
     case "UPDATE":
       doTransactionUpdate(db);
       break;
     case "INSERT":
-      doTransactionInsert(db);
+      if (batchsize > 1) {
+        doTransactionBatchInsert(db);
+      } else {
+        doTransactionInsert(db);
+      }
       break;
     case "SCAN":
       doTransactionScan(db);
@@ -726,6 +853,38 @@ public class CoreWorkload extends Workload {
     }
   }
 
+  public void doTransactionBatchRead(DB db) {
+    // choose batchsize random keys
+    List<String> keynames = new ArrayList<String>(batchsize);
+    for (int i = 0; i < batchsize; i++) {
+      keynames.add(buildKeyName(nextKeynum()));
+    }
+
+    HashSet<String> fields = null;
+
+    if (!readallfields) {
+      // read a random field
+      String fieldname = fieldnames.get(fieldchooser.nextValue().intValue());
+
+      fields = new HashSet<String>();
+      fields.add(fieldname);
+    } else if (dataintegrity) {
+      // pass the full field list if dataintegrity is on for verification
+      fields = new HashSet<String>(fieldnames);
+    }
+
+    List<Map<String, ByteIterator>> results = new ArrayList<Map<String, ByteIterator>>(batchsize);
+    db.batchRead(table, keynames, fields, results);
+
+    if (dataintegrity) {
+      for (int i = 0; i < keynames.size(); i++) {
+        Map<String, ByteIterator> cells = i < results.size() ? results.get(i) : null;
+        verifyRow(keynames.get(i), cells == null ?
+            new HashMap<String, ByteIterator>() : new HashMap<String, ByteIterator>(cells));
+      }
+    }
+  }
+
   public void doTransactionReadModifyWrite(DB db) {
     // choose a random key
     long keynum = nextKeynum();
@@ -759,9 +918,15 @@ public class CoreWorkload extends Workload {
 
     long ist = measurements.getIntendedtartTimeNs();
     long st = System.nanoTime();
-    db.read(table, keyname, fields, cells);
-
-    db.update(table, keyname, values);
+    int ttl = ttlgenerator == null ? 0 : ttlgenerator.nextValue().intValue();
+    if (db.readModifyWrite(table, keyname, fields, cells, values, ttl) == Status.NOT_IMPLEMENTED) {
+      db.read(table, keyname, fields, cells);
+      if (ttlgenerator == null) {
+        db.update(table, keyname, values);
+      } else {
+        db.update(table, keyname, values, ttl);
+      }
+    }
 
     long en = System.nanoTime();
 
@@ -792,7 +957,11 @@ public class CoreWorkload extends Workload {
       fields.add(fieldname);
     }
 
-    db.scan(table, startkeyname, len, fields, new Vector<HashMap<String, ByteIterator>>());
+    if (streamingscan) {
+      db.scan(table, startkeyname, len, fields, values -> true);
+    } else {
+      db.scan(table, startkeyname, len, fields, new Vector<HashMap<String, ByteIterator>>());
+    }
   }
 
   public void doTransactionUpdate(DB db) {
@@ -811,7 +980,7 @@ public class CoreWorkload extends Workload {
       values = buildSingleValue(keyname);
     }
 
-    db.update(table, keyname, values);
+    update(db, keyname, values);
   }
 
   public void doTransactionInsert(DB db) {
@@ -822,12 +991,35 @@ public class CoreWorkload extends Workload {
       String dbkey = buildKeyName(keynum);
 
       HashMap<String, ByteIterator> values = buildValues(dbkey);
-      db.insert(table, dbkey, values);
+      insert(db, dbkey, values);
     } finally {
       transactioninsertkeysequence.acknowledge(keynum);
     }
   }
 
+  public void doTransactionBatchInsert(DB db) {
+    // choose the next batchsize keys
+    long[] keynums = new long[batchsize];
+    for (int i = 0; i < batchsize; i++) {
+      keynums[i] = transactioninsertkeysequence.nextValue();
+    }
+
+    try {
+      List<String> dbkeys = new ArrayList<String>(batchsize);
+      List<Map<String, ByteIterator>> values = new ArrayList<Map<String, ByteIterator>>(batchsize);
+      for (long keynum : keynums) {
+        String dbkey = buildKeyName(keynum);
+        dbkeys.add(dbkey);
+        values.add(buildValues(dbkey));
+      }
+      db.batchInsert(table, dbkeys, values);
+    } finally {
+      for (long keynum : keynums) {
+        transactioninsertkeysequence.acknowledge(keynum);
+      }
+    }
+  }
+
   /**
    * Creates a weighted discrete values with database operations for a workload to perform.
    * Weights/proportions are read from the properties list and defaults are used
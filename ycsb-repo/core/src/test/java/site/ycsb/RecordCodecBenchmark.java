@@ -0,0 +1,285 @@
+/**
+ * Copyright (c) 2026 YCSB contributors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package site.ycsb;
+
+import org.codehaus.jackson.JsonNode;
+import org.codehaus.jackson.map.ObjectMapper;
+import org.codehaus.jackson.node.ObjectNode;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Compares {@link RecordCodec} against the record codecs the CacheLib, RocksDB and Memcached bindings
+ * used before it, by time and heap allocation per encode+decode round trip of one record.
+ * <p>
+ * Run from the repository root after
+ * {@code mvn -pl core test-compile dependency:build-classpath -Dmdep.outputFile=target/classpath}:
+ * <pre>
+ * java -cp core/target/classes:core/target/test-classes:$(cat core/target/classpath) \
+ *     site.ycsb.RecordCodecBenchmark [fieldcount] [fieldlength] [seconds]
+ * </pre>
+ * Allocation is measured with the HotSpot per-thread allocation counter, so this needs a HotSpot JVM.
+ * It is not named like a test, so surefire does not run it.
+ */
+public final class RecordCodecBenchmark {
+
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
+  private RecordCodecBenchmark() {
+  }
+
+  private interface Codec {
+    String name();
+
+    /** Encodes and decodes the record, returning something derived from the result. */
+    int roundTrip(Map<String, byte[]> record, Set<String> fields) throws IOException;
+  }
+
+  public static void main(String[] args) throws Exception {
+    final int fieldcount = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+    final int fieldlength = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+    final long seconds = args.length > 2 ? Long.parseLong(args[2]) : 5;
+
+    final Map<String, byte[]> record = new LinkedHashMap<>();
+    for (int i = 0; i < fieldcount; i++) {
+      record.put("field" + i, new RandomByteIterator(fieldlength).toArray());
+    }
+
+    final Codec[] codecs = {new DataStreamCodec(), new ByteBufferCodec(), new JsonCodec(), new SharedCodec(),
+        new DirectBufferCodec()};
+    System.out.printf("%d fields of %d bytes, %d s per codec%n", fieldcount, fieldlength, seconds);
+    System.out.printf("%-24s %14s %14s %14s%n", "codec", "ns/op", "B/op all", "B/op 1 field");
+    for (Codec codec : codecs) {
+      // warm up, then measure reading all fields and reading a single field
+      run(codec, record, null, seconds);
+      final double[] all = run(codec, record, null, seconds);
+      final double[] one = run(codec, record, java.util.Collections.singleton("field0"), seconds);
+      System.out.printf("%-24s %14.1f %14.1f %14.1f%n", codec.name(), all[0], all[1], one[1]);
+    }
+  }
+
+  /**
+   * @return nanoseconds and bytes allocated per round trip.
+   */
+  private static double[] run(Codec codec, Map<String, byte[]> record, Set<String> fields, long seconds)
+      throws IOException {
+    final com.sun.management.ThreadMXBean threads =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    final long thread = Thread.currentThread().getId();
+    final long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+
+    long ops = 0;
+    int sink = 0;
+    final long allocatedBefore = threads.getThreadAllocatedBytes(thread);
+    final long start = System.nanoTime();
+    long now = start;
+    while (now < deadline) {
+      for (int i = 0; i < 1000; i++) {
+        sink += codec.roundTrip(record, fields);
+      }
+      ops += 1000;
+      now = System.nanoTime();
+    }
+    final long allocated = threads.getThreadAllocatedBytes(thread) - allocatedBefore;
+    if (sink == 42) {
+      System.out.print("");
+    }
+    return new double[]{(double) (now - start) / ops, (double) allocated / ops};
+  }
+
+  private static Map<String, ByteIterator> values(Map<String, byte[]> record) {
+    final Map<String, ByteIterator> values = new HashMap<>();
+    for (Map.Entry<String, byte[]> entry : record.entrySet()) {
+      values.put(entry.getKey(), new ByteArrayByteIterator(entry.getValue()));
+    }
+    return values;
+  }
+
+  private static int consume(Map<String, ByteIterator> result) {
+    int sum = 0;
+    for (ByteIterator value : result.values()) {
+      sum += (int) value.bytesLeft();
+    }
+    return sum;
+  }
+
+  /** The new shared codec. */
+  private static final class SharedCodec implements Codec {
+    private final RecordCodec codec = new RecordCodec();
+
+    @Override
+    public String name() {
+      return "RecordCodec";
+    }
+
+    @Override
+    public int roundTrip(Map<String, byte[]> record, Set<String> fields) {
+      final int length = codec.encode(values(record));
+      final Map<String, ByteIterator> result = new HashMap<>();
+      codec.decode(codec.buffer(), 0, length, fields, result);
+      return consume(result);
+    }
+  }
+
+  /** The new shared codec encoding into and decoding from a reused direct buffer, as CacheLib and RocksDB do. */
+  private static final class DirectBufferCodec implements Codec {
+    private final RecordCodec codec = new RecordCodec();
+    private ByteBuffer buffer = ByteBuffer.allocateDirect(4096);
+
+    @Override
+    public String name() {
+      return "RecordCodec direct";
+    }
+
+    @Override
+    public int roundTrip(Map<String, byte[]> record, Set<String> fields) {
+      buffer.clear();
+      buffer = codec.encode(values(record), buffer);
+      buffer.flip();
+      final Map<String, ByteIterator> result = new HashMap<>();
+      codec.decode(buffer, fields, result);
+      return consume(result);
+    }
+  }
+
+  /** The previous CacheLibClient codec. */
+  private static final class DataStreamCodec implements Codec {
+    @Override
+    public String name() {
+      return "cachelib DataStream";
+    }
+
+    @Override
+    public int roundTrip(Map<String, byte[]> record, Set<String> fields) throws IOException {
+      final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+      final DataOutputStream dos = new DataOutputStream(baos);
+      for (Map.Entry<String, ByteIterator> entry : values(record).entrySet()) {
+        final byte[] keyBytes = entry.getKey().getBytes(UTF_8);
+        final byte[] valueBytes = entry.getValue().toArray();
+        dos.writeInt(keyBytes.length);
+        dos.write(keyBytes);
+        dos.writeInt(valueBytes.length);
+        dos.write(valueBytes);
+      }
+      dos.flush();
+
+      final Map<String, ByteIterator> result = new HashMap<>();
+      final DataInputStream dis = new DataInputStream(new ByteArrayInputStream(baos.toByteArray()));
+      while (dis.available() > 0) {
+        final byte[] keyBytes = new byte[dis.readInt()];
+        dis.readFully(keyBytes);
+        final String key = new String(keyBytes, UTF_8);
+        final byte[] valBytes = new byte[dis.readInt()];
+        dis.readFully(valBytes);
+        if (fields == null || fields.contains(key)) {
+          result.put(key, new ByteArrayByteIterator(valBytes));
+        }
+      }
+      return consume(result);
+    }
+  }
+
+  /** The previous RocksDBClient codec. */
+  private static final class ByteBufferCodec implements Codec {
+    @Override
+    public String name() {
+      return "rocksdb ByteBuffer";
+    }
+
+    @Override
+    public int roundTrip(Map<String, byte[]> record, Set<String> fields) throws IOException {
+      final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+      final ByteBuffer buf = ByteBuffer.allocate(4);
+      for (Map.Entry<String, ByteIterator> value : values(record).entrySet()) {
+        final byte[] keyBytes = value.getKey().getBytes(UTF_8);
+        final byte[] valueBytes = value.getValue().toArray();
+        buf.putInt(keyBytes.length);
+        baos.write(buf.array());
+        baos.write(keyBytes);
+        buf.clear();
+        buf.putInt(valueBytes.length);
+        baos.write(buf.array());
+        baos.write(valueBytes);
+        buf.clear();
+      }
+      final byte[] values = baos.toByteArray();
+
+      final Map<String, ByteIterator> result = new HashMap<>();
+      int offset = 0;
+      while (offset < values.length) {
+        buf.put(values, offset, 4);
+        buf.flip();
+        final int keyLen = buf.getInt();
+        buf.clear();
+        offset += 4;
+        final String key = new String(values, offset, keyLen, UTF_8);
+        offset += keyLen;
+        buf.put(values, offset, 4);
+        buf.flip();
+        final int valueLen = buf.getInt();
+        buf.clear();
+        offset += 4;
+        if (fields == null || fields.contains(key)) {
+          result.put(key, new ByteArrayByteIterator(values, offset, valueLen));
+        }
+        offset += valueLen;
+      }
+      return consume(result);
+    }
+  }
+
+  /** The previous MemcachedClient codec. */
+  private static final class JsonCodec implements Codec {
+    @Override
+    public String name() {
+      return "memcached JSON";
+    }
+
+    @Override
+    public int roundTrip(Map<String, byte[]> record, Set<String> fields) throws IOException {
+      final ObjectNode node = MAPPER.createObjectNode();
+      for (Map.Entry<String, String> pair : StringByteIterator.getStringMap(values(record)).entrySet()) {
+        node.put(pair.getKey(), pair.getValue());
+      }
+      final String json = MAPPER.writeValueAsString(node);
+
+      final Map<String, ByteIterator> result = new HashMap<>();
+      final JsonNode tree = MAPPER.readTree(json);
+      for (Iterator<Map.Entry<String, JsonNode>> it = tree.getFields(); it.hasNext();) {
+        final Map.Entry<String, JsonNode> field = it.next();
+        if (fields == null || fields.contains(field.getKey())) {
+          result.put(field.getKey(), new StringByteIterator(field.getValue().asText()));
+        }
+      }
+      return consume(result);
+    }
+  }
+}
@@ -0,0 +1,114 @@
+/**
+ * Copyright (c) 2026 YCSB contributors. All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package site.ycsb;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.Vector;
+
+/**
+ * An in-memory DB for tests. Single-key reads and inserts go to a map, batches use the default
+ * implementations of {@link DB} and are recorded by their keys. A key can be made to fail with a status.
+ */
+public class StubDB extends DB {
+
+  private final Map<String, Map<String, ByteIterator>> records = new HashMap<>();
+  private final Map<String, Status> failures = new HashMap<>();
+
+  private final List<List<String>> batchReads = new ArrayList<>();
+  private final List<List<String>> batchInserts = new ArrayList<>();
+
+  /**
+   * Makes every operation on {@code key} return {@code status}.
+   */
+  public void fail(String key, Status status) {
+    failures.put(key, status);
+  }
+
+  public Map<String, ByteIterator> get(String key) {
+    return records.get(key);
+  }
+
+  /**
+   * @return the keys of each batch read, in call order.
+   */
+  public List<List<String>> getBatchReads() {
+    return batchReads;
+  }
+
+  /**
+   * @return the keys of each batch insert, in call order.
+   */
+  public List<List<String>> getBatchInserts() {
+    return batchInserts;
+  }
+
+  @Override
+  public Status read(String table, String key, Set<String> fields, Map<String, ByteIterator> result) {
+    if (failures.containsKey(key)) {
+      return failures.get(key);
+    }
+    Map<String, ByteIterator> record = records.get(key);
+    if (record == null) {
+      return Status.NOT_FOUND;
+    }
+    result.putAll(record);
+    return Status.OK;
+  }
+
+  @Override
+  public Status scan(String table, String startkey, int recordcount, Set<String> fields,
+                     Vector<HashMap<String, ByteIterator>> result) {
+    return Status.NOT_IMPLEMENTED;
+  }
+
+  @Override
+  public Status update(String table, String key, Map<String, ByteIterator> values) {
+    return Status.NOT_IMPLEMENTED;
+  }
+
+  @Override
+  public Status insert(String table, String key, Map<String, ByteIterator> values) {
+    if (failures.containsKey(key)) {
+      return failures.get(key);
+    }
+    records.put(key, values);
+    return Status.OK;
+  }
+
+  @Override
+  public Status delete(String table, String key) {
+    return records.remove(key) != null ? Status.OK : Status.NOT_FOUND;
+  }
+
+  @Override
+  public Status batchRead(String table, List<String> keys, Set<String> fields,
+                          List<Map<String, ByteIterator>> results) {
+    batchReads.add(new ArrayList<>(keys));
+    return super.batchRead(table, keys, fields, results);
+  }
+
+  @Override
+  public Status batchInsert(String table, List<String> keys, List<Map<String, ByteIterator>> values) {
+    batchInserts.add(new ArrayList<>(keys));
+    return super.batchInsert(table, keys, values);
+  }
+}
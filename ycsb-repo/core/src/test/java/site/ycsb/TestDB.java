@@ -0,0 +1,93 @@
+/**
+ * Copyright (c) 2026 YCSB contributors. All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package site.ycsb;
+
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertNotNull;
+import static org.testng.AssertJUnit.assertNull;
+
+/**
+ * Test class for the default batch implementations of {@link DB}.
+ */
+public class TestDB {
+
+  private static StubDB stubWith(String... keys) {
+    final StubDB db = new StubDB();
+    for (String key : keys) {
+      final Map<String, ByteIterator> record = new HashMap<>();
+      record.put("field0", new StringByteIterator(key));
+      db.insert("usertable", key, record);
+    }
+    return db;
+  }
+
+  @Test
+  public void batchReadOfFoundKeys() {
+    final StubDB db = stubWith("a", "b");
+    final List<Map<String, ByteIterator>> results = new ArrayList<>();
+    assertEquals(Status.OK, db.batchRead("usertable", Arrays.asList("b", "a"), null, results));
+    assertEquals(2, results.size());
+    assertEquals("b", results.get(0).get("field0").toString());
+    assertEquals("a", results.get(1).get("field0").toString());
+  }
+
+  @Test
+  public void batchReadOfMissingKeys() {
+    final StubDB db = stubWith("a", "c");
+    final List<Map<String, ByteIterator>> results = new ArrayList<>();
+    assertEquals(Status.NOT_FOUND, db.batchRead("usertable", Arrays.asList("a", "b", "c"), null, results));
+    assertEquals(3, results.size());
+    assertNotNull(results.get(0));
+    assertNull(results.get(1));
+    assertNotNull(results.get(2));
+  }
+
+  @Test
+  public void batchReadFailureWinsOverMissingKeys() {
+    final StubDB db = stubWith("a");
+    db.fail("c", Status.ERROR);
+    db.fail("d", Status.SERVICE_UNAVAILABLE);
+    final List<Map<String, ByteIterator>> results = new ArrayList<>();
+    assertEquals(Status.ERROR, db.batchRead("usertable", Arrays.asList("a", "b", "c", "d"), null, results));
+    assertEquals(4, results.size());
+    assertNull(results.get(2));
+  }
+
+  @Test
+  public void batchInsertReportsFirstFailure() {
+    final StubDB db = new StubDB();
+    db.fail("b", Status.SERVICE_UNAVAILABLE);
+    db.fail("c", Status.ERROR);
+    final Map<String, ByteIterator> record = new HashMap<>();
+    assertEquals(Status.SERVICE_UNAVAILABLE, db.batchInsert("usertable", Arrays.asList("a", "b", "c", "d"),
+        Arrays.asList(record, record, record, record)));
+    // the keys after a failure are still inserted
+    assertNotNull(db.get("a"));
+    assertNotNull(db.get("d"));
+
+    assertEquals(Status.OK, db.batchInsert("usertable", Arrays.asList("e", "f"), Arrays.asList(record, record)));
+  }
+}
@@ -0,0 +1,81 @@
+/**
+ * Copyright (c) 2026 YCSB contributors. All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package site.ycsb;
+
+import site.ycsb.measurements.Measurements;
+import site.ycsb.measurements.exporter.TextMeasurementsExporter;
+
+import org.apache.htrace.core.HTraceConfiguration;
+import org.apache.htrace.core.Tracer;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertTrue;
+
+/**
+ * Test class for the batch measurements of {@link DBWrapper}.
+ */
+public class TestDBWrapper {
+
+  @Test
+  public void batchesAreMeasuredPerBatchAndPerKey() throws Exception {
+    Measurements.setProperties(new Properties());
+    final StubDB stub = new StubDB();
+    final Map<String, ByteIterator> record = new HashMap<>();
+    record.put("field0", new StringByteIterator("value"));
+    stub.insert("usertable", "a", record);
+    stub.insert("usertable", "b", record);
+
+    final Tracer tracer = new Tracer.Builder("TestDBWrapper")
+        .conf(HTraceConfiguration.fromMap(Collections.<String, String>emptyMap()))
+        .build();
+    final DBWrapper db = new DBWrapper(stub, tracer);
+    db.setProperties(new Properties());
+    db.init();
+
+    final List<Map<String, ByteIterator>> results = new ArrayList<>();
+    assertEquals(Status.OK, db.batchRead("usertable", Arrays.asList("a", "b"), null, results));
+    assertEquals(Status.NOT_FOUND, db.batchRead("usertable", Arrays.asList("a", "x", "y"), null, results));
+    assertEquals(Status.OK, db.batchInsert("usertable", Arrays.asList("c", "d", "e"),
+        Arrays.asList(record, record, record)));
+
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (TextMeasurementsExporter exporter = new TextMeasurementsExporter(out)) {
+      Measurements.getMeasurements().exportMeasurements(exporter);
+    }
+    final String exported = out.toString("UTF-8");
+    // one measurement per call, both for the batch and its per-key latency, named by the batch status
+    assertTrue(exported, exported.contains("[BATCH-READ], Operations, 1"));
+    assertTrue(exported, exported.contains("[BATCH-READ-PER-KEY], Operations, 1"));
+    assertTrue(exported, exported.contains("[BATCH-READ-FAILED], Operations, 1"));
+    assertTrue(exported, exported.contains("[BATCH-READ-PER-KEY-FAILED], Operations, 1"));
+    assertTrue(exported, exported.contains("[BATCH-READ], Return=OK, 1"));
+    assertTrue(exported, exported.contains("[BATCH-READ], Return=NOT_FOUND, 1"));
+    assertTrue(exported, exported.contains("[BATCH-INSERT], Operations, 1"));
+    assertTrue(exported, exported.contains("[BATCH-INSERT-PER-KEY], Operations, 1"));
+  }
+}
@@ -0,0 +1,66 @@
+/**
+ * Copyright (c) 2026 YCSB contributors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package site.ycsb;
+
+import site.ycsb.measurements.Measurements;
+import site.ycsb.measurements.exporter.TextMeasurementsExporter;
+
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Properties;
+
+import static org.testng.AssertJUnit.assertTrue;
+
+/**
+ * Test class for {@link PendingOperation}.
+ */
+public class TestPendingOperation {
+
+  @Test
+  public void completionIsMeasured() throws Exception {
+    Measurements.setProperties(new Properties());
+    final Properties properties = new Properties();
+    properties.setProperty(MeasurementNames.LATENCY_TRACKED_ERRORS_PROPERTY, "NOT_FOUND");
+    final MeasurementNames names = new MeasurementNames(properties);
+    final PendingOperation ok = PendingOperation.start("PENDING-TEST", names);
+    final PendingOperation failed = PendingOperation.start("PENDING-TEST", names);
+    final PendingOperation missing = PendingOperation.start("PENDING-TEST", names);
+    Thread.sleep(2);
+    // completions typically arrive on another thread
+    final Thread completer = new Thread(() -> {
+        ok.complete(Status.OK);
+        failed.complete(Status.ERROR);
+        missing.complete(Status.NOT_FOUND);
+      });
+    completer.start();
+    completer.join();
+
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (TextMeasurementsExporter exporter = new TextMeasurementsExporter(out)) {
+      Measurements.getMeasurements().exportMeasurements(exporter);
+    }
+    final String exported = out.toString("UTF-8");
+    assertTrue(exported, exported.contains("[PENDING-TEST], Operations, 1"));
+    assertTrue(exported, exported.contains("[PENDING-TEST], Return=OK, 1"));
+    assertTrue(exported, exported.contains("[PENDING-TEST], Return=ERROR, 1"));
+    assertTrue(exported, exported.contains("[PENDING-TEST-FAILED], Operations, 1"));
+    // named like DBWrapper names the errors it tracks
+    assertTrue(exported, exported.contains("[PENDING-TEST-NOT_FOUND], Operations, 1"));
+  }
+}
@@ -0,0 +1,194 @@
+/**
+ * Copyright (c) 2026 YCSB contributors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package site.ycsb;
+
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.testng.AssertJUnit.*;
+
+public class TestRecordCodec {
+
+  private static Map<String, String> sampleRecord() {
+    final Map<String, String> record = new LinkedHashMap<>();
+    for (int i = 0; i < 10; i++) {
+      record.put("field" + i, "value-" + i + "-" + new String(new char[i * 13]).replace('\0', 'x'));
+    }
+    return record;
+  }
+
+  @Test
+  public void roundTrip() {
+    final Map<String, String> record = sampleRecord();
+    final RecordCodec codec = new RecordCodec(16);
+    final byte[] encoded = codec.encodeToArray(StringByteIterator.getByteIteratorMap(record));
+
+    final Map<String, ByteIterator> decoded = new HashMap<>();
+    codec.decode(encoded, null, decoded);
+    assertEquals(record, StringByteIterator.getStringMap(decoded));
+  }
+
+  @Test
+  public void decodeOnlyRequestedFields() {
+    final RecordCodec codec = new RecordCodec();
+    final int length = codec.encode(StringByteIterator.getByteIteratorMap(sampleRecord()));
+
+    final Map<String, ByteIterator> decoded = new HashMap<>();
+    codec.decode(codec.buffer(), 0, length, Collections.singleton("field3"), decoded);
+    assertEquals(Collections.singleton("field3"), decoded.keySet());
+    assertEquals(sampleRecord().get("field3"), decoded.get("field3").toString());
+  }
+
+  @Test
+  public void encodeWithHeadroom() {
+    final Map<String, String> record = sampleRecord();
+    final RecordCodec codec = new RecordCodec(16);
+    final int end = codec.encode(StringByteIterator.getByteIteratorMap(record), 4);
+    RecordCodec.putInt(codec.buffer(), 0, end - 4);
+    assertEquals(end, codec.length());
+
+    final Map<String, ByteIterator> decoded = new HashMap<>();
+    codec.decode(codec.buffer(), 4, RecordCodec.getInt(codec.buffer(), 0), null, decoded);
+    assertEquals(record, StringByteIterator.getStringMap(decoded));
+  }
+
+  @Test
+  public void randomValuesKeepTheirLength() {
+    final Map<String, ByteIterator> values = new LinkedHashMap<>();
+    final int[] lengths = {1, 7, 100, 0, 4099};
+    for (int i = 0; i < lengths.length; i++) {
+      values.put("field" + i, new RandomByteIterator(lengths[i]));
+    }
+    final RecordCodec codec = new RecordCodec(32);
+    final byte[] encoded = codec.encodeToArray(values);
+
+    final Map<String, ByteIterator> decoded = new HashMap<>();
+    codec.decode(encoded, null, decoded);
+    assertEquals(lengths.length, decoded.size());
+    for (int i = 0; i < lengths.length; i++) {
+      assertEquals(lengths[i], decoded.get("field" + i).bytesLeft());
+    }
+  }
+
+  @Test
+  public void matchesLegacyLayout() throws IOException {
+    final Map<String, String> record = sampleRecord();
+    final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    final DataOutputStream dos = new DataOutputStream(baos);
+    for (Map.Entry<String, String> entry : record.entrySet()) {
+      final byte[] name = entry.getKey().getBytes(UTF_8);
+      final byte[] value = entry.getValue().getBytes(UTF_8);
+      dos.writeInt(name.length);
+      dos.write(name);
+      dos.writeInt(value.length);
+      dos.write(value);
+    }
+
+    final Map<String, ByteIterator> values = new LinkedHashMap<>();
+    for (Map.Entry<String, String> entry : record.entrySet()) {
+      values.put(entry.getKey(), new StringByteIterator(entry.getValue()));
+    }
+    final RecordCodec codec = new RecordCodec();
+    assertTrue(Arrays.equals(baos.toByteArray(), codec.encodeToArray(values)));
+  }
+
+  @Test
+  public void decodeDirectBufferCopiesValues() {
+    final Map<String, String> record = sampleRecord();
+    final RecordCodec codec = new RecordCodec();
+    final int length = codec.encode(StringByteIterator.getByteIteratorMap(record));
+    final ByteBuffer direct = ByteBuffer.allocateDirect(length);
+    direct.put(codec.buffer(), 0, length);
+    direct.flip();
+
+    final Map<String, ByteIterator> decoded = new HashMap<>();
+    codec.decode(direct, null, decoded);
+    assertFalse(direct.hasRemaining());
+
+    direct.clear();
+    while (direct.hasRemaining()) {
+      direct.put((byte) 0);
+    }
+    assertEquals(record, StringByteIterator.getStringMap(decoded));
+  }
+
+  @Test
+  public void decodeDirectBuffersIntoOneArray() {
+    final RecordCodec codec = new RecordCodec();
+    final ByteBuffer direct = ByteBuffer.allocateDirect(256);
+    codec.encode(StringByteIterator.getByteIteratorMap(Collections.singletonMap("a", "first")), direct).flip();
+    final Map<String, ByteIterator> first = new HashMap<>();
+    codec.decode(direct, null, first);
+
+    direct.clear();
+    codec.encode(StringByteIterator.getByteIteratorMap(Collections.singletonMap("b", "other")), direct).flip();
+    final Map<String, ByteIterator> second = new HashMap<>();
+    codec.decode(direct, null, second);
+
+    // both are views over the same array, which the second decode overwrote
+    assertEquals("other", second.get("b").toString());
+    assertEquals("other", first.get("a").toString());
+  }
+
+  @Test
+  public void encodeIntoDirectBuffer() {
+    final Map<String, String> record = sampleRecord();
+    final RecordCodec codec = new RecordCodec();
+    final byte[] expected = codec.encodeToArray(StringByteIterator.getByteIteratorMap(record));
+
+    final ByteBuffer direct = ByteBuffer.allocateDirect(expected.length + 8);
+    direct.position(8);
+    assertSame(direct, codec.encode(StringByteIterator.getByteIteratorMap(record), direct));
+    assertEquals(expected.length + 8, direct.position());
+
+    final byte[] encoded = new byte[expected.length];
+    direct.position(8);
+    direct.get(encoded);
+    assertTrue(Arrays.equals(expected, encoded));
+  }
+
+  @Test
+  public void encodeIntoBufferGrowsIt() {
+    final Map<String, ByteIterator> values = new LinkedHashMap<>();
+    values.put("array", new ByteArrayByteIterator("0123456789".getBytes(UTF_8), 2, 5));
+    values.put("random", new RandomByteIterator(5000));
+    final ByteBuffer small = ByteBuffer.allocateDirect(16);
+    small.put((byte) 42);
+
+    final ByteBuffer grown = new RecordCodec().encode(values, small);
+    assertNotSame(small, grown);
+    assertTrue(grown.isDirect());
+    grown.flip();
+    assertEquals(42, grown.get());
+
+    final Map<String, ByteIterator> decoded = new HashMap<>();
+    new RecordCodec().decode(grown, null, decoded);
+    assertEquals("23456", decoded.get("array").toString());
+    assertEquals(5000, decoded.get("random").bytesLeft());
+  }
+}
@@ -34,6 +34,7 @@ public class TestStatus {
     assertFalse(Status.ERROR.isOk());
     assertFalse(Status.FORBIDDEN.isOk());
     assertFalse(Status.NOT_FOUND.isOk());
+    assertFalse(Status.PENDING.isOk());
     assertFalse(Status.NOT_IMPLEMENTED.isOk());
     assertFalse(Status.SERVICE_UNAVAILABLE.isOk());
     assertFalse(Status.UNEXPECTED_STATE.isOk());
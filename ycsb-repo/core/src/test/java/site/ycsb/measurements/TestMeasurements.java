@@ -0,0 +1,57 @@
+/**
+ * Copyright (c) 2026 YCSB contributors. All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+package site.ycsb.measurements;
+
+import site.ycsb.measurements.exporter.TextMeasurementsExporter;
+
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Properties;
+
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertTrue;
+
+/**
+ * Test class for the counters and gauges of {@link Measurements}.
+ */
+public class TestMeasurements {
+
+  @Test
+  public void countersAndGaugesAreNotLatencies() throws Exception {
+    final Measurements measurements = new Measurements(new Properties());
+    measurements.count("MISSES", 3);
+    measurements.count("MISSES", 4000000000L);
+    measurements.gauge("MEMORY-MB", 10);
+    measurements.gauge("MEMORY-MB", 30);
+    measurements.gauge("MEMORY-MB", 20);
+
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (TextMeasurementsExporter exporter = new TextMeasurementsExporter(out)) {
+      measurements.exportMeasurements(exporter);
+    }
+    final String exported = out.toString("UTF-8");
+    assertTrue(exported, exported.contains("[MISSES], Total, 4000000003"));
+    assertTrue(exported, exported.contains("[MEMORY-MB], Samples, 3"));
+    assertTrue(exported, exported.contains("[MEMORY-MB], Last, 20"));
+    assertTrue(exported, exported.contains("[MEMORY-MB], Min, 10"));
+    assertTrue(exported, exported.contains("[MEMORY-MB], Max, 30"));
+    assertTrue(exported, exported.contains("[MEMORY-MB], Average, 20.0"));
+    assertFalse(exported, exported.contains("Latency"));
+    assertTrue(measurements.getSummary(), measurements.getSummary().contains("[MISSES: Total=4000000003]"));
+  }
+}
@@ -16,13 +16,21 @@
  */
 package site.ycsb.workloads;
 
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
 import static org.testng.Assert.assertTrue;
 
 import java.util.Properties;
 
 import org.testng.annotations.Test;
 
+import site.ycsb.Client;
+import site.ycsb.StubDB;
+import site.ycsb.WorkloadException;
+
 import site.ycsb.generator.DiscreteGenerator;
+import site.ycsb.generator.NumberGenerator;
 
 public class TestCoreWorkload {
 
@@ -67,4 +75,91 @@ public class TestCoreWorkload {
   public void createOperationChooserNullProperties() {
     CoreWorkload.createOperationGenerator(null);
   }
-}
\ No newline at end of file
+
+  @Test
+  public void ttlGeneratorDefaultsToNone() throws Exception {
+    assertNull(CoreWorkload.getTtlGenerator(new Properties()));
+  }
+
+  @Test
+  public void ttlGeneratorStaysInRange() throws Exception {
+    final Properties p = new Properties();
+    p.setProperty(CoreWorkload.TTL_DISTRIBUTION_PROPERTY, "constant");
+    p.setProperty(CoreWorkload.TTL_PROPERTY, "60");
+    assertEquals(CoreWorkload.getTtlGenerator(p).nextValue().intValue(), 60);
+
+    p.setProperty(CoreWorkload.TTL_DISTRIBUTION_PROPERTY, "zipfian");
+    p.setProperty(CoreWorkload.MIN_TTL_PROPERTY, "10");
+    final NumberGenerator generator = CoreWorkload.getTtlGenerator(p);
+    for (int i = 0; i < 100; ++i) {
+      int ttl = generator.nextValue().intValue();
+      assertTrue(ttl >= 10 && ttl <= 60);
+    }
+  }
+
+  @Test (expectedExceptions = WorkloadException.class)
+  public void ttlGeneratorUnknownDistribution() throws Exception {
+    final Properties p = new Properties();
+    p.setProperty(CoreWorkload.TTL_DISTRIBUTION_PROPERTY, "exponential");
+    CoreWorkload.getTtlGenerator(p);
+  }
+
+  private static Properties batchProperties(String operation, int batchsize) {
+    final Properties p = new Properties();
+    p.setProperty(Client.RECORD_COUNT_PROPERTY, "100");
+    p.setProperty(CoreWorkload.READ_PROPORTION_PROPERTY, "0");
+    p.setProperty(CoreWorkload.UPDATE_PROPORTION_PROPERTY, "0");
+    p.setProperty(operation, "1");
+    p.setProperty(CoreWorkload.BATCH_SIZE_PROPERTY, String.valueOf(batchsize));
+    return p;
+  }
+
+  @Test
+  public void batchedReadsGroupKeys() throws Exception {
+    final Properties p = batchProperties(CoreWorkload.READ_PROPORTION_PROPERTY, 4);
+    final CoreWorkload workload = new CoreWorkload();
+    workload.init(p);
+    final StubDB db = new StubDB();
+    for (int i = 0; i < 3; ++i) {
+      assertTrue(workload.doTransaction(db, workload.initThread(p, 0, 1)));
+    }
+    assertEquals(db.getBatchReads().size(), 3);
+    for (int i = 0; i < 3; ++i) {
+      assertEquals(db.getBatchReads().get(i).size(), 4);
+    }
+  }
+
+  @Test
+  public void batchedInsertsTakeConsecutiveKeys() throws Exception {
+    final Properties p = batchProperties(CoreWorkload.INSERT_PROPORTION_PROPERTY, 4);
+    p.setProperty(CoreWorkload.INSERT_ORDER_PROPERTY, "ordered");
+    final CoreWorkload workload = new CoreWorkload();
+    workload.init(p);
+    final StubDB db = new StubDB();
+    assertTrue(workload.doTransaction(db, workload.initThread(p, 0, 1)));
+    assertTrue(workload.doTransaction(db, workload.initThread(p, 0, 1)));
+
+    assertEquals(db.getBatchInserts().size(), 2);
+    for (int i = 0; i < 8; ++i) {
+      final String key = db.getBatchInserts().get(i / 4).get(i % 4);
+      assertEquals(key, workload.buildKeyName(100 + i));
+      assertEquals(db.get(key).size(), 10);
+    }
+  }
+
+  @Test
+  public void batchSizeOfOneDoesNotBatch() throws Exception {
+    final Properties p = batchProperties(CoreWorkload.INSERT_PROPORTION_PROPERTY, 1);
+    final CoreWorkload workload = new CoreWorkload();
+    workload.init(p);
+    final StubDB db = new StubDB();
+    assertTrue(workload.doTransaction(db, workload.initThread(p, 0, 1)));
+    assertTrue(db.getBatchInserts().isEmpty());
+    assertNotNull(db.get(workload.buildKeyName(100)));
+  }
+
+  @Test (expectedExceptions = WorkloadException.class)
+  public void batchSizeMustBePositive() throws Exception {
+    new CoreWorkload().init(batchProperties(CoreWorkload.READ_PROPORTION_PROPERTY, 0));
+  }
+}
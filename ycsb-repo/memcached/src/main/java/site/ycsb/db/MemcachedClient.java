@@ -17,39 +17,44 @@
 
 package site.ycsb.db;
 
+import site.ycsb.ByteArrayByteIterator;
 import site.ycsb.ByteIterator;
 import site.ycsb.DB;
 import site.ycsb.DBException;
+import site.ycsb.MeasurementNames;
+import site.ycsb.PendingOperation;
+import site.ycsb.RecordCodec;
 import site.ycsb.Status;
-import site.ycsb.StringByteIterator;
+import site.ycsb.measurements.Measurements;
 
-import java.io.IOException;
-import java.io.StringWriter;
-import java.io.Writer;
 import java.net.InetSocketAddress;
+import java.net.SocketAddress;
 import java.text.MessageFormat;
 import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.Vector;
-
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import net.spy.memcached.CASResponse;
+import net.spy.memcached.CASValue;
 import net.spy.memcached.ConnectionFactoryBuilder;
+import net.spy.memcached.DefaultHashAlgorithm;
 import net.spy.memcached.FailureMode;
+import net.spy.memcached.MemcachedNode;
 // We also use `net.spy.memcached.MemcachedClient`; it is not imported
 // explicitly and referred to with its full path to avoid conflicts with the
 // class of the same name in this file.
+import net.spy.memcached.internal.GetCompletionListener;
 import net.spy.memcached.internal.GetFuture;
 import net.spy.memcached.internal.OperationFuture;
 
-import org.codehaus.jackson.JsonFactory;
-import org.codehaus.jackson.JsonGenerator;
-import org.codehaus.jackson.JsonNode;
-import org.codehaus.jackson.map.ObjectMapper;
-import org.codehaus.jackson.node.ObjectNode;
-
 import org.apache.log4j.Logger;
 
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
@@ -61,12 +66,37 @@ public class MemcachedClient extends DB {
 
   private final Logger logger = Logger.getLogger(getClass());
 
-  protected static final ObjectMapper MAPPER = new ObjectMapper();
+  /**
+   * Records are stored as byte arrays in the shared {@link RecordCodec} layout, which the
+   * {@link RecordTranscoder} writes as-is or deflated rather than through Java serialization.
+   */
+  private final RecordCodec codec = new RecordCodec();
 
   private boolean checkOperationStatus;
   private long shutdownTimeoutMillis;
   private int objectExpirationTime;
 
+  /**
+   * In pipelined mode, limits the operations of this client thread in flight to the window size; null
+   * when every operation waits for its result.
+   */
+  private Semaphore window;
+  private int windowSize;
+  /** Names pipelined operations are measured under once they complete, like DBWrapper names them. */
+  private MeasurementNames measurementNames;
+
+  private int casRetries;
+
+  private boolean replicate;
+  private long hedgeDelayMillis;
+  private boolean nodeMetrics;
+
+  /**
+   * Measurement name prefixes of the servers, see {@link #measureNode}. Pipelined operations complete on
+   * spymemcached's IO thread, hence the concurrent map.
+   */
+  private final Map<MemcachedNode, String> nodeNames = new ConcurrentHashMap<MemcachedNode, String>();
+
   public static final String HOSTS_PROPERTY = "memcached.hosts";
 
   public static final int DEFAULT_PORT = 11211;
@@ -98,10 +128,69 @@ public class MemcachedClient extends DB {
   public static final FailureMode FAILURE_MODE_PROPERTY_DEFAULT =
       FailureMode.Redistribute;
 
+  /**
+   * Number of operations each client thread keeps in flight. Above 0, operations return
+   * {@link Status#PENDING} as soon as they are sent, once the window has room, and are measured from issue
+   * to completion by their completion listeners; the wait for room only counts towards the intended
+   * latency. 0 waits for every result.
+   */
+  public static final String PIPELINE_PROPERTY = "memcached.pipeline";
+  public static final String DEFAULT_PIPELINE = "0";
+
+  /**
+   * Times an atomic read-modify-write retries its compare-and-swap after a concurrent update before it
+   * gives up with {@link #CAS_CONFLICT}.
+   */
+  public static final String CAS_RETRIES_PROPERTY = "memcached.cas.retries";
+  public static final String DEFAULT_CAS_RETRIES = "10";
+
+  private static final Status CAS_CONFLICT =
+      new Status("CAS_CONFLICT", "The record kept changing between gets and cas.");
+
+  /**
+   * Records of at least this many bytes are stored deflated when that makes them smaller, see
+   * {@link RecordTranscoder}; -1 never deflates.
+   */
+  public static final String COMPRESSION_THRESHOLD_PROPERTY = "memcached.compressionThreshold";
+  public static final String DEFAULT_COMPRESSION_THRESHOLD = "-1";
+
   public static final String PROTOCOL_PROPERTY = "memcached.protocol";
   public static final ConnectionFactoryBuilder.Protocol DEFAULT_PROTOCOL =
       ConnectionFactoryBuilder.Protocol.TEXT;
 
+  /**
+   * How keys are spread over the hosts: ARRAY_MOD, hash modulo the number of hosts, or CONSISTENT, a
+   * Ketama ring on which adding or removing a host moves only the keys of that host.
+   */
+  public static final String LOCATOR_PROPERTY = "memcached.locator";
+  public static final ConnectionFactoryBuilder.Locator DEFAULT_LOCATOR =
+      ConnectionFactoryBuilder.Locator.ARRAY_MOD;
+
+  /**
+   * A {@link DefaultHashAlgorithm} name. Defaults to KETAMA_HASH with the CONSISTENT locator and to
+   * NATIVE_HASH otherwise.
+   */
+  public static final String HASH_ALGORITHM_PROPERTY = "memcached.hashAlgorithm";
+
+  /** Inserts, updates and deletes also write a replica of the record to a second host. */
+  public static final String REPLICATE_PROPERTY = "memcached.replicate";
+  public static final String DEFAULT_REPLICATE = "false";
+
+  /**
+   * Milliseconds after which a read that has not completed also asks the replica host; -1 never does.
+   * Needs memcached.replicate.
+   */
+  public static final String HEDGE_DELAY_MILLIS_PROPERTY = "memcached.hedgeDelayMillis";
+  public static final String DEFAULT_HEDGE_DELAY_MILLIS = "-1";
+
+  /** Measures reads, inserts, updates and deletes per host too, as NODE-&lt;host:port&gt;-&lt;operation&gt;. */
+  public static final String NODE_METRICS_PROPERTY = "memcached.nodemetrics";
+  public static final String DEFAULT_NODE_METRICS = "false";
+
+  /** Separates the record key from the suffix of its replica key. */
+  private static final String REPLICA_SEPARATOR = "#";
+  private static final int MAX_REPLICA_PROBES = 16;
+
   /**
    * The MemcachedClient implementation that will be used to communicate
    * with the memcached server.
@@ -129,9 +218,30 @@ public class MemcachedClient extends DB {
       shutdownTimeoutMillis = Integer.parseInt(
           getProperties().getProperty(SHUTDOWN_TIMEOUT_MILLIS_PROPERTY,
                                       DEFAULT_SHUTDOWN_TIMEOUT_MILLIS));
+      windowSize = Integer.parseInt(
+          getProperties().getProperty(PIPELINE_PROPERTY, DEFAULT_PIPELINE));
+      window = windowSize > 0 ? new Semaphore(windowSize) : null;
+      measurementNames = new MeasurementNames(getProperties());
+      casRetries = Integer.parseInt(
+          getProperties().getProperty(CAS_RETRIES_PROPERTY, DEFAULT_CAS_RETRIES));
+      replicate = Boolean.parseBoolean(
+          getProperties().getProperty(REPLICATE_PROPERTY, DEFAULT_REPLICATE));
+      hedgeDelayMillis = Long.parseLong(
+          getProperties().getProperty(HEDGE_DELAY_MILLIS_PROPERTY, DEFAULT_HEDGE_DELAY_MILLIS));
+      nodeMetrics = Boolean.parseBoolean(
+          getProperties().getProperty(NODE_METRICS_PROPERTY, DEFAULT_NODE_METRICS));
     } catch (Exception e) {
       throw new DBException(e);
     }
+    if (replicate && memcachedClient().getNodeLocator().getAll().size() < 2) {
+      throw new DBException(REPLICATE_PROPERTY + " needs at least two hosts");
+    }
+    if (replicate && window != null) {
+      throw new DBException(REPLICATE_PROPERTY + " can not be combined with " + PIPELINE_PROPERTY);
+    }
+    if (hedgeDelayMillis >= 0 && !replicate) {
+      throw new DBException(HEDGE_DELAY_MILLIS_PROPERTY + " needs " + REPLICATE_PROPERTY);
+    }
   }
 
   protected net.spy.memcached.MemcachedClient createMemcachedClient()
@@ -151,6 +261,21 @@ public class MemcachedClient extends DB {
         protocolString == null ? DEFAULT_PROTOCOL
                          : ConnectionFactoryBuilder.Protocol.valueOf(protocolString.toUpperCase()));
 
+    connectionFactoryBuilder.setTranscoder(new RecordTranscoder(Integer.parseInt(
+        getProperties().getProperty(COMPRESSION_THRESHOLD_PROPERTY, DEFAULT_COMPRESSION_THRESHOLD))));
+
+    String locatorString = getProperties().getProperty(LOCATOR_PROPERTY);
+    ConnectionFactoryBuilder.Locator locator = locatorString == null ? DEFAULT_LOCATOR
+        : ConnectionFactoryBuilder.Locator.valueOf(locatorString.toUpperCase());
+    connectionFactoryBuilder.setLocatorType(locator);
+
+    String hashString = getProperties().getProperty(HASH_ALGORITHM_PROPERTY);
+    if (hashString != null) {
+      connectionFactoryBuilder.setHashAlg(DefaultHashAlgorithm.valueOf(hashString.toUpperCase()));
+    } else if (locator == ConnectionFactoryBuilder.Locator.CONSISTENT) {
+      connectionFactoryBuilder.setHashAlg(DefaultHashAlgorithm.KETAMA_HASH);
+    }
+
     String failureString = getProperties().getProperty(FAILURE_MODE_PROPERTY);
     connectionFactoryBuilder.setFailureMode(
         failureString == null ? FAILURE_MODE_PROPERTY_DEFAULT
@@ -182,13 +307,195 @@ public class MemcachedClient extends DB {
       String table, String key, Set<String> fields,
       Map<String, ByteIterator> result) {
     key = createQualifiedKey(table, key);
+    if (window != null) {
+      return readPipelined(key, fields);
+    }
+    long start = System.nanoTime();
+    Status status = Status.ERROR;
     try {
-      GetFuture<Object> future = memcachedClient().asyncGet(key);
-      Object document = future.get();
+      Object document = hedgeDelayMillis >= 0 ? hedgedGet(key) : memcachedClient().asyncGet(key).get();
       if (document != null) {
-        fromJson((String) document, fields, result);
+        codec.decode((byte[]) document, fields, result);
+      }
+      status = Status.OK;
+    } catch (Exception e) {
+      logger.error("Error encountered for key: " + key, e);
+    }
+    measureNode("READ", key, start, status);
+    return status;
+  }
+
+  /**
+   * Gets the record, and if it has not arrived after memcached.hedgeDelayMillis, its replica as well;
+   * the first of the two found is returned. Reads that sent the replica get are measured as
+   * "HEDGED-READ". A failed get counts as a miss.
+   */
+  private Object hedgedGet(String key) throws Exception {
+    long start = System.nanoTime();
+    final CompletableFuture<Object> first = new CompletableFuture<Object>();
+    final AtomicInteger pending = new AtomicInteger(1);
+    GetCompletionListener listener = future -> completeHedged(future, first, pending);
+    // not a get with a timeout, which would time the operation out
+    memcachedClient().asyncGet(key).addListener(listener);
+    try {
+      return first.get(hedgeDelayMillis, MILLISECONDS);
+    } catch (TimeoutException e) {
+      if (pending.getAndIncrement() == 0) {
+        // missed just now
+        return first.get();
+      }
+    }
+    memcachedClient().asyncGet(replicaKey(key)).addListener(listener);
+    Object document = first.get();
+    Measurements.getMeasurements().measure("HEDGED-READ", (int) ((System.nanoTime() - start) / 1000));
+    return document;
+  }
+
+  /**
+   * Completes a hedged read with the document of one of its gets, or with null once all its gets missed.
+   */
+  private void completeHedged(GetFuture<?> future, CompletableFuture<Object> first, AtomicInteger pending) {
+    Object document = null;
+    try {
+      document = future.get();
+    } catch (Exception e) {
+      logger.debug("Hedged get failed", e);
+    }
+    if (document != null) {
+      first.complete(document);
+    } else if (pending.decrementAndGet() == 0) {
+      first.complete(null);
+    }
+  }
+
+  /**
+   * Sends a get without waiting for it. The record is decoded by the completion listener, as a
+   * synchronous read would, and then discarded.
+   */
+  private Status readPipelined(final String key, final Set<String> fields) {
+    try {
+      window.acquire();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return Status.ERROR;
+    }
+    final PendingOperation operation = PendingOperation.start("READ", measurementNames);
+    final long start = System.nanoTime();
+    try {
+      memcachedClient().asyncGet(key).addListener(future -> {
+          Status status = Status.ERROR;
+          try {
+            Object document = future.get();
+            if (document != null) {
+              RecordCodec.get().decode((byte[]) document, fields, new HashMap<String, ByteIterator>());
+            }
+            status = Status.OK;
+          } catch (Exception e) {
+            logger.error("Error encountered for key: " + key, e);
+          }
+          try {
+            operation.complete(status);
+            measureNode("READ", key, start, status);
+          } finally {
+            window.release();
+          }
+        });
+      return Status.PENDING;
+    } catch (Exception e) {
+      window.release();
+      logger.error("Error encountered for key: " + key, e);
+      return Status.ERROR;
+    }
+  }
+
+  /**
+   * Reads the whole batch with one multi-key get, a single round trip per server, see
+   * {@link site.ycsb.DB#batchRead}. Batches wait for their result in pipelined mode too.
+   */
+  @Override
+  public Status batchRead(
+      String table, List<String> keys, Set<String> fields,
+      List<Map<String, ByteIterator>> results) {
+    List<String> qualifiedKeys = new ArrayList<String>(keys.size());
+    for (String key : keys) {
+      qualifiedKeys.add(createQualifiedKey(table, key));
+    }
+    try {
+      Map<String, Object> documents = memcachedClient().asyncGetBulk(qualifiedKeys).get();
+      Status status = Status.OK;
+      for (String key : qualifiedKeys) {
+        Object document = documents.get(key);
+        if (document == null) {
+          results.add(null);
+          status = Status.NOT_FOUND;
+          continue;
+        }
+        Map<String, ByteIterator> result = new HashMap<String, ByteIterator>();
+        codec.decode((byte[]) document, fields, result);
+        results.add(result);
+      }
+      return status;
+    } catch (Exception e) {
+      logger.error("Error encountered for a batch of " + keys.size() + " keys", e);
+      return Status.ERROR;
+    }
+  }
+
+  /**
+   * Reads the record with gets and writes it back merged with the new values with cas, which fails if
+   * another client changed it in between; then it starts over, up to memcached.cas.retries times. Every
+   * failed cas is counted as "CAS-CONFLICT" and every new attempt after one as "CAS-RETRIES". Waits for the
+   * result in pipelined mode too.
+   */
+  @Override
+  public Status readModifyWrite(
+      String table, String key, Set<String> fields, Map<String, ByteIterator> result,
+      Map<String, ByteIterator> values, int ttl) {
+    key = createQualifiedKey(table, key);
+    long start = System.nanoTime();
+    Status status = casUpdate(key, fields, result, values, ttl);
+    measureNode("READ-MODIFY-WRITE", key, start, status);
+    return status;
+  }
+
+  private Status casUpdate(
+      String key, Set<String> fields, Map<String, ByteIterator> result, Map<String, ByteIterator> values, int ttl) {
+    Measurements measurements = Measurements.getMeasurements();
+    try {
+      // The iterators of values can only be read once, a retry after a conflict re-reads the bytes.
+      Map<String, byte[]> updates = new HashMap<String, byte[]>();
+      for (Map.Entry<String, ByteIterator> entry : values.entrySet()) {
+        updates.put(entry.getKey(), entry.getValue().toArray());
+      }
+      for (int retries = 0;; retries++) {
+        CASValue<Object> current = memcachedClient().gets(key);
+        if (current == null) {
+          return Status.NOT_FOUND;
+        }
+        byte[] document = (byte[]) current.getValue();
+        Map<String, ByteIterator> record = new HashMap<String, ByteIterator>();
+        codec.decode(document, null, record);
+        for (Map.Entry<String, byte[]> entry : updates.entrySet()) {
+          record.put(entry.getKey(), new ByteArrayByteIterator(entry.getValue()));
+        }
+        byte[] updated = codec.encodeToArray(record);
+        CASResponse response = memcachedClient().cas(key, current.getCas(), expirationTime(ttl), updated);
+        if (response == CASResponse.OK) {
+          codec.decode(document, fields, result);
+          return replicate
+              ? getReturnCode(memcachedClient().set(replicaKey(key), expirationTime(ttl), updated)) : Status.OK;
+        } else if (response == CASResponse.NOT_FOUND) {
+          return Status.NOT_FOUND;
+        } else if (response != CASResponse.EXISTS) {
+          logger.error("Unexpected cas response " + response + " for key: " + key);
+          return Status.ERROR;
+        }
+        measurements.count("CAS-CONFLICT", 1);
+        if (retries == casRetries) {
+          return CAS_CONFLICT;
+        }
+        measurements.count("CAS-RETRIES", 1);
       }
-      return Status.OK;
     } catch (Exception e) {
       logger.error("Error encountered for key: " + key, e);
       return Status.ERROR;
@@ -205,11 +512,16 @@ public class MemcachedClient extends DB {
   @Override
   public Status update(
       String table, String key, Map<String, ByteIterator> values) {
+    return update(table, key, values, 0);
+  }
+
+  @Override
+  public Status update(
+      String table, String key, Map<String, ByteIterator> values, int ttl) {
     key = createQualifiedKey(table, key);
     try {
-      OperationFuture<Boolean> future =
-          memcachedClient().replace(key, objectExpirationTime, toJson(values));
-      return getReturnCode(future);
+      byte[] document = codec.encodeToArray(values);
+      return write("UPDATE", key, k -> memcachedClient().replace(k, expirationTime(ttl), document));
     } catch (Exception e) {
       logger.error("Error updating value with key: " + key, e);
       return Status.ERROR;
@@ -219,29 +531,129 @@ public class MemcachedClient extends DB {
   @Override
   public Status insert(
       String table, String key, Map<String, ByteIterator> values) {
+    return insert(table, key, values, 0);
+  }
+
+  @Override
+  public Status insert(
+      String table, String key, Map<String, ByteIterator> values, int ttl) {
     key = createQualifiedKey(table, key);
     try {
-      OperationFuture<Boolean> future =
-          memcachedClient().add(key, objectExpirationTime, toJson(values));
-      return getReturnCode(future);
+      byte[] document = codec.encodeToArray(values);
+      return write("INSERT", key, k -> memcachedClient().add(k, expirationTime(ttl), document));
     } catch (Exception e) {
       logger.error("Error inserting value", e);
       return Status.ERROR;
     }
   }
 
+  /**
+   * Per-item TTLs from the workload take precedence over memcached.objectExpirationTime.
+   */
+  private int expirationTime(int ttl) {
+    return ttl > 0 ? ttl : objectExpirationTime;
+  }
+
   @Override
   public Status delete(String table, String key) {
     key = createQualifiedKey(table, key);
     try {
-      OperationFuture<Boolean> future = memcachedClient().delete(key);
-      return getReturnCode(future);
+      return write("DELETE", key, k -> memcachedClient().delete(k));
     } catch (Exception e) {
       logger.error("Error deleting value", e);
       return Status.ERROR;
     }
   }
 
+  /**
+   * Sends a write to the record's host, and with memcached.replicate to its replica host as well, then
+   * waits for both. In pipelined mode it does not wait, see {@link #pipelined}.
+   */
+  private Status write(String operationName, String key, Operation send) throws InterruptedException {
+    if (window != null) {
+      return pipelined(operationName, key, send);
+    }
+    long start = System.nanoTime();
+    OperationFuture<Boolean> future = send.send(key);
+    OperationFuture<Boolean> replica = replicate ? send.send(replicaKey(key)) : null;
+    Status status = Status.ERROR;
+    try {
+      status = getReturnCode(future);
+    } finally {
+      measureNode(operationName, key, start, status);
+    }
+    if (replica != null && status.isOk()) {
+      status = getReturnCode(replica);
+    }
+    return status;
+  }
+
+  /**
+   * Sends an operation once the window has room, without waiting for it. Its completion listener
+   * measures it and frees its slot in the window.
+   */
+  private Status pipelined(String operationName, String key, Operation send) throws InterruptedException {
+    window.acquire();
+    final PendingOperation operation = PendingOperation.start(operationName, measurementNames);
+    final long start = System.nanoTime();
+    final OperationFuture<Boolean> future;
+    try {
+      future = send.send(key);
+    } catch (RuntimeException e) {
+      window.release();
+      throw e;
+    }
+    future.addListener(completed -> {
+        try {
+          Status status = getReturnCode(future);
+          operation.complete(status);
+          measureNode(operationName, key, start, status);
+        } finally {
+          window.release();
+        }
+      });
+    return Status.PENDING;
+  }
+
+  /** Sends a spymemcached operation on a key. */
+  private interface Operation {
+    OperationFuture<Boolean> send(String key);
+  }
+
+  /**
+   * The key the replica of a record is stored under: the record key with the first suffix that maps to
+   * another host than the record key itself.
+   */
+  private String replicaKey(String key) {
+    MemcachedNode primary = memcachedClient().getNodeLocator().getPrimary(key);
+    String replica = key;
+    for (int i = 1; i <= MAX_REPLICA_PROBES; i++) {
+      replica = key + REPLICA_SEPARATOR + i;
+      if (memcachedClient().getNodeLocator().getPrimary(replica) != primary) {
+        break;
+      }
+    }
+    return replica;
+  }
+
+  /**
+   * With memcached.nodemetrics, measures an operation under the host of its key as well, as
+   * NODE-&lt;host:port&gt;-&lt;operation&gt;, with failures named like those of DBWrapper.
+   */
+  private void measureNode(String operationName, String key, long startNanos, Status status) {
+    if (!nodeMetrics) {
+      return;
+    }
+    String name = nodeNames.computeIfAbsent(memcachedClient().getNodeLocator().getPrimary(key), node -> {
+        SocketAddress address = node.getSocketAddress();
+        return "NODE-" + (address instanceof InetSocketAddress
+            ? ((InetSocketAddress) address).getHostString() + ":" + ((InetSocketAddress) address).getPort()
+            : String.valueOf(address));
+      });
+    Measurements.getMeasurements().measure(measurementNames.of(name + "-" + operationName, status),
+        (int) ((System.nanoTime() - startNanos) / 1000));
+  }
+
   protected Status getReturnCode(OperationFuture<Boolean> future) {
     if (!checkOperationStatus) {
       return Status.OK;
@@ -258,6 +670,16 @@ public class MemcachedClient extends DB {
 
   @Override
   public void cleanup() throws DBException {
+    if (window != null) {
+      // let the operations in flight complete and be measured
+      try {
+        if (!window.tryAcquire(windowSize, shutdownTimeoutMillis, MILLISECONDS)) {
+          logger.warn("Operations still in flight at shutdown: " + (windowSize - window.availablePermits()));
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
     if (client != null) {
       memcachedClient().shutdown(shutdownTimeoutMillis, MILLISECONDS);
     }
@@ -266,38 +688,4 @@ public class MemcachedClient extends DB {
   protected static String createQualifiedKey(String table, String key) {
     return MessageFormat.format("{0}-{1}", table, key);
   }
-
-  protected static void fromJson(
-      String value, Set<String> fields,
-      Map<String, ByteIterator> result) throws IOException {
-    JsonNode json = MAPPER.readTree(value);
-    boolean checkFields = fields != null && !fields.isEmpty();
-    for (Iterator<Map.Entry<String, JsonNode>> jsonFields = json.getFields();
-         jsonFields.hasNext();
-         /* increment in loop body */) {
-      Map.Entry<String, JsonNode> jsonField = jsonFields.next();
-      String name = jsonField.getKey();
-      if (checkFields && !fields.contains(name)) {
-        continue;
-      }
-      JsonNode jsonValue = jsonField.getValue();
-      if (jsonValue != null && !jsonValue.isNull()) {
-        result.put(name, new StringByteIterator(jsonValue.asText()));
-      }
-    }
-  }
-
-  protected static String toJson(Map<String, ByteIterator> values)
-      throws IOException {
-    ObjectNode node = MAPPER.createObjectNode();
-    Map<String, String> stringMap = StringByteIterator.getStringMap(values);
-    for (Map.Entry<String, String> pair : stringMap.entrySet()) {
-      node.put(pair.getKey(), pair.getValue());
-    }
-    JsonFactory jsonFactory = new JsonFactory();
-    Writer writer = new StringWriter();
-    JsonGenerator jsonGenerator = jsonFactory.createJsonGenerator(writer);
-    MAPPER.writeTree(jsonGenerator, node);
-    return writer.toString();
-  }
 }
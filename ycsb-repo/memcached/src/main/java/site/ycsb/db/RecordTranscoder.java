@@ -0,0 +1,131 @@
+/**
+ * Copyright (c) 2026 YCSB contributors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package site.ycsb.db;
+
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import net.spy.memcached.CachedData;
+import net.spy.memcached.transcoders.Transcoder;
+
+import site.ycsb.RecordCodec;
+
+/**
+ * Stores records, already encoded by {@link site.ycsb.RecordCodec}, as they are, and deflates those of at
+ * least the compression threshold when that makes them smaller. Unlike spymemcached's default transcoder
+ * it never falls back to Java serialization, and it decodes on the thread that waits for the result
+ * rather than on spymemcached's transcoding pool.
+ */
+final class RecordTranscoder implements Transcoder<Object> {
+
+  /** Flag of values stored deflated, behind the 4 byte length of the record. */
+  static final int DEFLATED = 1 << 12;
+
+  private static final ThreadLocal<Deflater> DEFLATER =
+      ThreadLocal.withInitial(() -> new Deflater(Deflater.BEST_SPEED));
+  private static final ThreadLocal<Inflater> INFLATER = ThreadLocal.withInitial(Inflater::new);
+  private static final ThreadLocal<byte[]> SCRATCH = ThreadLocal.withInitial(() -> new byte[16 * 1024]);
+
+  private final int compressionThreshold;
+
+  /**
+   * @param compressionThreshold Size in bytes from which records are deflated, or -1 to never deflate.
+   */
+  RecordTranscoder(int compressionThreshold) {
+    this.compressionThreshold = compressionThreshold;
+  }
+
+  @Override
+  public boolean asyncDecode(CachedData data) {
+    return false;
+  }
+
+  @Override
+  public CachedData encode(Object value) {
+    if (!(value instanceof byte[])) {
+      throw new IllegalArgumentException("Not an encoded record: " + value.getClass().getName());
+    }
+    byte[] record = (byte[]) value;
+    if (compressionThreshold >= 0 && record.length >= compressionThreshold) {
+      byte[] deflated = deflate(record);
+      if (deflated != null) {
+        return new CachedData(DEFLATED, deflated, getMaxSize());
+      }
+    }
+    return new CachedData(0, record, getMaxSize());
+  }
+
+  @Override
+  public Object decode(CachedData data) {
+    if ((data.getFlags() & DEFLATED) == 0) {
+      return data.getData();
+    }
+    return inflate(data.getData());
+  }
+
+  @Override
+  public int getMaxSize() {
+    return CachedData.MAX_SIZE;
+  }
+
+  /**
+   * @return the length of the record followed by the deflated record, or null if that is not smaller.
+   */
+  private static byte[] deflate(byte[] record) {
+    Deflater deflater = DEFLATER.get();
+    deflater.reset();
+    deflater.setInput(record);
+    deflater.finish();
+    byte[] out = SCRATCH.get();
+    if (out.length < record.length) {
+      out = new byte[record.length];
+      SCRATCH.set(out);
+    }
+    RecordCodec.putInt(out, 0, record.length);
+    int length = 4;
+    while (!deflater.finished() && length < record.length) {
+      length += deflater.deflate(out, length, record.length - length);
+    }
+    return deflater.finished() && length < record.length ? Arrays.copyOf(out, length) : null;
+  }
+
+  private static byte[] inflate(byte[] data) {
+    Inflater inflater = INFLATER.get();
+    inflater.reset();
+    inflater.setInput(data, 4, data.length - 4);
+    byte[] record = new byte[RecordCodec.getInt(data, 0)];
+    try {
+      int length = 0;
+      while (length < record.length && !inflater.finished()) {
+        int n = inflater.inflate(record, length, record.length - length);
+        if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+          break;
+        }
+        length += n;
+      }
+      if (length != record.length) {
+        throw new IllegalStateException("Truncated record, " + length + " of " + record.length + " bytes");
+      }
+    } catch (DataFormatException e) {
+      throw new IllegalStateException("Corrupt record", e);
+    }
+    return record;
+  }
+}
@@ -0,0 +1,194 @@
+/**
+ * Copyright (c) 2026 YCSB contributors. All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package site.ycsb.db;
+
+import site.ycsb.ByteIterator;
+import site.ycsb.MeasurementNames;
+import site.ycsb.RecordCodec;
+import site.ycsb.Status;
+import site.ycsb.StringByteIterator;
+import site.ycsb.measurements.Measurements;
+import net.spy.memcached.CASResponse;
+import net.spy.memcached.CASValue;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class MemcachedClientTest {
+
+  private static final String TABLE = "usertable";
+  private static final String KEY = "user1";
+
+  /**
+   * Keeps the documents in a map. The first {@code conflicts} calls of cas
+   * fail as if another client had changed field1 between gets and cas.
+   */
+  private static class FakeMemcached extends net.spy.memcached.MemcachedClient {
+    private final Map<String, CASValue<Object>> documents = new HashMap<>();
+    private int conflicts;
+
+    FakeMemcached(InetSocketAddress address) throws IOException {
+      super(address);
+    }
+
+    @Override
+    public CASValue<Object> gets(String key) {
+      return documents.get(key);
+    }
+
+    @Override
+    public CASResponse cas(String key, long casId, int exp, Object value) {
+      CASValue<Object> current = documents.get(key);
+      if (current == null) {
+        return CASResponse.NOT_FOUND;
+      }
+      if (conflicts > 0) {
+        conflicts--;
+        Map<String, ByteIterator> record = decode((byte[]) current.getValue());
+        record.put("field1", new StringByteIterator("concurrent"));
+        put(key, record);
+        return CASResponse.EXISTS;
+      }
+      if (current.getCas() != casId) {
+        return CASResponse.EXISTS;
+      }
+      documents.put(key, new CASValue<Object>(casId + 1, value));
+      return CASResponse.OK;
+    }
+
+    void put(String key, Map<String, ByteIterator> record) {
+      CASValue<Object> current = documents.get(key);
+      long cas = current == null ? 1 : current.getCas() + 1;
+      documents.put(key, new CASValue<Object>(cas, new RecordCodec().encodeToArray(record)));
+    }
+
+    Map<String, ByteIterator> stored(String key) {
+      return decode((byte[]) documents.get(key).getValue());
+    }
+
+    private static Map<String, ByteIterator> decode(byte[] document) {
+      Map<String, ByteIterator> record = new HashMap<>();
+      new RecordCodec().decode(document, null, record);
+      return record;
+    }
+  }
+
+  private ServerSocket server;
+  private FakeMemcached fake;
+  private MemcachedClient instance;
+
+  @Before
+  public void setup() throws Exception {
+    Measurements.setProperties(new Properties());
+    // a socket that accepts but never answers keeps the spymemcached IO thread quiet
+    server = new ServerSocket(0);
+    fake = new FakeMemcached(new InetSocketAddress("127.0.0.1", server.getLocalPort()));
+    instance = open(new Properties());
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    instance.cleanup();
+    server.close();
+  }
+
+  private MemcachedClient open(Properties overrides) throws Exception {
+    MemcachedClient client = new MemcachedClient() {
+      @Override
+      protected net.spy.memcached.MemcachedClient createMemcachedClient() {
+        return fake;
+      }
+    };
+    Properties properties = new Properties();
+    properties.setProperty(MemcachedClient.CAS_RETRIES_PROPERTY, "2");
+    properties.setProperty(MemcachedClient.SHUTDOWN_TIMEOUT_MILLIS_PROPERTY, "100");
+    properties.putAll(overrides);
+    client.setProperties(properties);
+    client.init();
+    return client;
+  }
+
+  private static Map<String, ByteIterator> record(String... fieldsAndValues) {
+    Map<String, ByteIterator> record = new HashMap<>();
+    for (int i = 0; i < fieldsAndValues.length; i += 2) {
+      record.put(fieldsAndValues[i], new StringByteIterator(fieldsAndValues[i + 1]));
+    }
+    return record;
+  }
+
+  @Test
+  public void readModifyWriteRetriesWithTheUpdatedValues() throws Exception {
+    String key = MemcachedClient.createQualifiedKey(TABLE, KEY);
+    fake.put(key, record("field0", "old", "field1", "old"));
+    fake.conflicts = 2;
+
+    Map<String, ByteIterator> result = new HashMap<>();
+    Status status = instance.readModifyWrite(TABLE, KEY, null, result, record("field0", "new"), 0);
+
+    assertEquals(Status.OK, status);
+    Map<String, ByteIterator> stored = fake.stored(key);
+    assertEquals("new", stored.get("field0").toString());
+    assertEquals("concurrent", stored.get("field1").toString());
+    assertEquals("concurrent", result.get("field1").toString());
+    final String summary = Measurements.getMeasurements().getSummary();
+    assertTrue(summary, summary.contains("CAS-RETRIES: Total=2"));
+  }
+
+  @Test
+  public void readModifyWriteGivesUpAfterTheRetries() throws Exception {
+    String key = MemcachedClient.createQualifiedKey(TABLE, KEY);
+    fake.put(key, record("field0", "old", "field1", "old"));
+    fake.conflicts = 3;
+
+    Status status = instance.readModifyWrite(TABLE, KEY, null, new HashMap<>(), record("field0", "new"), 0);
+
+    assertEquals("CAS_CONFLICT", status.getName());
+    assertEquals("old", fake.stored(key).get("field0").toString());
+  }
+
+  @Test
+  public void nodeMetricsNameFailuresLikeDBWrapper() throws Exception {
+    Properties properties = new Properties();
+    properties.setProperty(MemcachedClient.NODE_METRICS_PROPERTY, "true");
+    properties.setProperty(MeasurementNames.REPORT_LATENCY_FOR_EACH_ERROR_PROPERTY, "true");
+    Measurements.setProperties(properties);
+    // the shutdown of the spymemcached client is shared, so only the instance of tearDown cleans up
+    MemcachedClient client = open(properties);
+    String key = MemcachedClient.createQualifiedKey(TABLE, KEY);
+    fake.put(key, record("field0", "old"));
+
+    assertEquals(Status.OK, client.readModifyWrite(TABLE, KEY, null, new HashMap<>(), record("field0", "new"), 0));
+    fake.conflicts = 3;
+    client.readModifyWrite(TABLE, KEY, null, new HashMap<>(), record("field0", "new"), 0);
+
+    String node = "NODE-127.0.0.1:" + server.getLocalPort();
+    String summary = Measurements.getMeasurements().getSummary();
+    assertTrue(summary, summary.contains(node + "-READ-MODIFY-WRITE:"));
+    assertTrue(summary, summary.contains(node + "-READ-MODIFY-WRITE-CAS_CONFLICT:"));
+  }
+}
@@ -0,0 +1,140 @@
+/**
+ * Copyright (c) 2026 YCSB contributors. All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package site.ycsb.db;
+
+import net.spy.memcached.CachedData;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class RecordTranscoderTest {
+
+  private static final int THRESHOLD = 256;
+
+  private final RecordTranscoder transcoder = new RecordTranscoder(THRESHOLD);
+
+  private static byte[] compressible(int length) {
+    byte[] record = new byte[length];
+    for (int i = 0; i < length; i++) {
+      record[i] = (byte) ('a' + i % 4);
+    }
+    return record;
+  }
+
+  private static byte[] incompressible(int length) {
+    byte[] record = new byte[length];
+    new Random(42).nextBytes(record);
+    return record;
+  }
+
+  @Test
+  public void belowThresholdIsStoredAsIs() {
+    byte[] record = compressible(THRESHOLD - 1);
+    CachedData data = transcoder.encode(record);
+
+    assertEquals(0, data.getFlags());
+    assertArrayEquals(record, data.getData());
+    assertArrayEquals(record, (byte[]) transcoder.decode(data));
+  }
+
+  @Test
+  public void aboveThresholdIsDeflated() {
+    byte[] record = compressible(THRESHOLD * 4);
+    CachedData data = transcoder.encode(record);
+
+    assertEquals(RecordTranscoder.DEFLATED, data.getFlags());
+    assertTrue(data.getData().length < record.length);
+    assertArrayEquals(record, (byte[]) transcoder.decode(data));
+  }
+
+  @Test
+  public void atThresholdIsDeflated() {
+    byte[] record = compressible(THRESHOLD);
+    CachedData data = transcoder.encode(record);
+
+    assertEquals(RecordTranscoder.DEFLATED, data.getFlags());
+    assertArrayEquals(record, (byte[]) transcoder.decode(data));
+  }
+
+  @Test
+  public void incompressibleIsStoredAsIs() {
+    byte[] record = incompressible(THRESHOLD * 4);
+    CachedData data = transcoder.encode(record);
+
+    assertEquals(0, data.getFlags());
+    assertArrayEquals(record, data.getData());
+    assertArrayEquals(record, (byte[]) transcoder.decode(data));
+  }
+
+  @Test
+  public void recordsOfGrowingAndShrinkingSize() {
+    // the middle record is larger than the scratch array of the thread
+    for (int length : new int[]{THRESHOLD, 64 * 1024, THRESHOLD * 2}) {
+      byte[] record = compressible(length);
+      assertArrayEquals(record, (byte[]) transcoder.decode(transcoder.encode(record)));
+    }
+  }
+
+  @Test
+  public void negativeThresholdNeverDeflates() {
+    byte[] record = compressible(THRESHOLD * 4);
+    CachedData data = new RecordTranscoder(-1).encode(record);
+
+    assertEquals(0, data.getFlags());
+    assertArrayEquals(record, data.getData());
+  }
+
+  @Test
+  public void decodeWithoutFlagReturnsTheData() {
+    // values stored by a client without compression, whatever they contain
+    byte[] record = compressible(THRESHOLD * 4);
+    CachedData data = new CachedData(0, record, CachedData.MAX_SIZE);
+
+    assertSame(record, transcoder.decode(data));
+  }
+
+  @Test
+  public void decodeWithFlagInflates() {
+    // values deflated by a client with another threshold decode the same
+    byte[] record = compressible(THRESHOLD * 4);
+    CachedData deflated = new RecordTranscoder(0).encode(record);
+    CachedData data = new CachedData(RecordTranscoder.DEFLATED, deflated.getData(), CachedData.MAX_SIZE);
+
+    assertArrayEquals(record, (byte[]) new RecordTranscoder(-1).decode(data));
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void decodeOfTruncatedDataFails() {
+    byte[] record = compressible(THRESHOLD * 4);
+    byte[] deflated = transcoder.encode(record).getData();
+    byte[] truncated = Arrays.copyOf(deflated, deflated.length / 2);
+
+    transcoder.decode(new CachedData(RecordTranscoder.DEFLATED, truncated, CachedData.MAX_SIZE));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void encodeRejectsOtherValues() {
+    transcoder.encode("not a record");
+  }
+}
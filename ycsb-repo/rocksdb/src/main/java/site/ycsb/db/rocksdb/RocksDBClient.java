@@ -19,6 +19,7 @@ package site.ycsb.db.rocksdb;
 
 import site.ycsb.*;
 import site.ycsb.Status;
+import site.ycsb.measurements.Measurements;
 import net.jcip.annotations.GuardedBy;
 import org.rocksdb.*;
 import org.slf4j.Logger;
@@ -30,8 +31,10 @@ import java.nio.file.*;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
 
@@ -43,18 +46,147 @@ import static java.nio.charset.StandardCharsets.UTF_8;
 public class RocksDBClient extends DB {
 
   static final String PROPERTY_ROCKSDB_DIR = "rocksdb.dir";
+  static final String PROPERTY_ROCKSDB_UPDATE_MODE = "rocksdb.updatemode";
+  static final String UPDATE_MODE_RMW = "rmw";
+  static final String UPDATE_MODE_MERGE = "merge";
+  static final String PROPERTY_ROCKSDB_MERGE_MAX_FRAMES = "rocksdb.merge.maxframes";
+  static final String PROPERTY_ROCKSDB_OPTIONS_FILE = "rocksdb.optionsfile";
+  static final String PROPERTY_ROCKSDB_ALLOW_MMAP_READS = "rocksdb.allowmmapreads";
+  static final String PROPERTY_ROCKSDB_BULK_LOAD = "rocksdb.bulkload";
+  static final String PROPERTY_ROCKSDB_BULK_LOAD_DIR = "rocksdb.bulkload.dir";
+  static final String PROPERTY_ROCKSDB_BULK_LOAD_FILE_MB = "rocksdb.bulkload.filemb";
+  static final String PROPERTY_ROCKSDB_SCAN_READAHEAD_KB = "rocksdb.scan.readaheadkb";
+  static final String PROPERTY_ROCKSDB_SCAN_REUSE_ITERATOR = "rocksdb.scan.reuseiterator";
+  /**
+   * {@code record} stores a record under one key, {@code field} each field under its own key. Updates in the
+   * field layout are blind writes of the updated fields, so unlike in the record layout an update of a missing
+   * key returns OK and creates a record of just those fields.
+   */
+  static final String PROPERTY_ROCKSDB_LAYOUT = "rocksdb.layout";
+  static final String LAYOUT_RECORD = "record";
+  static final String LAYOUT_FIELD = "field";
+  static final String PROPERTY_ROCKSDB_STATS = "rocksdb.stats";
+  static final String PROPERTY_ROCKSDB_STATS_LEVEL = "rocksdb.stats.level";
+  /**
+   * Interval in seconds at which the statistics and memory usage are polled and recorded as measurements; defaults to
+   * status.interval so every status line shows the running totals of the counters and the last samples of the
+   * gauges. 0 only records them at the end of the run.
+   */
+  static final String PROPERTY_ROCKSDB_STATS_INTERVAL = "rocksdb.stats.interval";
+  static final String PROPERTY_ROCKSDB_MEMORY_BUDGET_MB = "rocksdb.memorybudgetmb";
+  static final String PROPERTY_ROCKSDB_CHECKPOINT_SAVE = "rocksdb.checkpoint.save";
+  static final String PROPERTY_ROCKSDB_CHECKPOINT_RESTORE = "rocksdb.checkpoint.restore";
+  /**
+   * Switches reads, inserts and updates to RocksDB's direct ByteBuffer get and put. Keys and values then
+   * go through per-thread off-heap buffers instead of arrays allocated for every operation.
+   */
+  static final String PROPERTY_ROCKSDB_DIRECT_BUFFER = "rocksdb.directbuffer";
+  /** Initial size in bytes of the per-thread direct value buffer; it grows on demand. */
+  static final String PROPERTY_ROCKSDB_DIRECT_BUFFER_SIZE = "rocksdb.directbuffer.size";
+  static final String PROPERTY_ROCKSDB_MEMORY_BUDGET_WRITE_BUFFER_PCT = "rocksdb.memorybudget.writebufferpct";
+
+  /**
+   * Column family overrides, set as {@code rocksdb.<name>} for every column family or as
+   * {@code rocksdb.cf.<cf>.<name>} for one, which takes precedence.
+   */
+  static final String CF_BLOCK_CACHE_MB = "blockcachemb";
+  static final String CF_BLOOM_BITS = "bloombits";
+  static final String CF_COMPRESSION = "compression";
+  static final String CF_WRITE_BUFFER_MB = "writebuffermb";
+  /** Values of at least this many bytes are stored in blob files, which enables them. */
+  static final String CF_BLOB_MIN_BYTES = "blobminbytes";
+  static final String CF_BLOB_COMPRESSION = "blobcompression";
+  static final String CF_BLOB_FILE_MB = "blobfilemb";
+  /** Share of the oldest blob files, 0 to 1, whose live values compaction relocates; unset disables blob GC. */
+  static final String CF_BLOB_GC_AGE_CUTOFF = "blobgcagecutoff";
+  /** Total SST file size at which FIFO compaction drops the oldest files, which enables it. */
+  static final String CF_FIFO_MAX_MB = "fifomaxmb";
+  /** Age in seconds at which FIFO compaction drops a file. */
+  static final String CF_TTL_SECONDS = "ttlseconds";
+  private static final String[] CF_OVERRIDES = {CF_BLOCK_CACHE_MB, CF_BLOOM_BITS, CF_COMPRESSION, CF_WRITE_BUFFER_MB,
+      CF_BLOB_MIN_BYTES, CF_BLOB_COMPRESSION, CF_BLOB_FILE_MB, CF_BLOB_GC_AGE_CUTOFF, CF_FIFO_MAX_MB, CF_TTL_SECONDS};
   private static final String COLUMN_FAMILY_NAMES_FILENAME = "CF_NAMES";
 
   private static final Logger LOGGER = LoggerFactory.getLogger(RocksDBClient.class);
 
   @GuardedBy("RocksDBClient.class") private static Path rocksDbDir = null;
-  @GuardedBy("RocksDBClient.class") private static RocksObject dbOptions = null;
+  @GuardedBy("RocksDBClient.class") private static DBOptions dbOptions = null;
   @GuardedBy("RocksDBClient.class") private static RocksDB rocksDb = null;
   @GuardedBy("RocksDBClient.class") private static int references = 0;
+  @GuardedBy("RocksDBClient.class") private static StringAppendOperator mergeOperator = null;
+  @GuardedBy("RocksDBClient.class") private static Statistics statistics = null;
+
+  /**
+   * With a memory budget, the block cache of every column family. The write buffer manager charges the
+   * memtables to it and index and filter blocks are cached in it, so it holds all of the budget.
+   */
+  @GuardedBy("RocksDBClient.class") private static Cache sharedCache = null;
+  @GuardedBy("RocksDBClient.class") private static WriteBufferManager writeBufferManager = null;
+
+  /** Background thread polling the statistics and memory usage, if enabled. */
+  @GuardedBy("RocksDBClient.class") private static Thread statsPoller = null;
+
+  /**
+   * Whether data can be dropped by FIFO compaction, in which case reads are counted as a cache's would
+   * be and recorded as ROCKSDB-GETS and ROCKSDB-GET-MISSES, like the CacheLib counters.
+   */
+  private static volatile boolean cacheMode = false;
+  private static final LongAdder GETS = new LongAdder();
+  private static final LongAdder GET_MISSES = new LongAdder();
+
+  /** Tickers recorded as ROCKSDB-&lt;TICKER&gt; counters, running totals with byte counts in bytes. */
+  private static final TickerType[] STATS_TICKERS = {
+      TickerType.BLOCK_CACHE_HIT, TickerType.BLOCK_CACHE_MISS, TickerType.BLOOM_FILTER_USEFUL,
+      TickerType.MEMTABLE_HIT, TickerType.MEMTABLE_MISS, TickerType.BYTES_READ, TickerType.BYTES_WRITTEN,
+      TickerType.FLUSH_WRITE_BYTES, TickerType.COMPACT_READ_BYTES, TickerType.COMPACT_WRITE_BYTES,
+      TickerType.STALL_MICROS, TickerType.BLOB_DB_BLOB_FILE_BYTES_WRITTEN, TickerType.BLOB_DB_BLOB_FILE_BYTES_READ};
+
+  /** Histograms of the time RocksDB itself spends per operation, recorded at the end of the run. */
+  private static final HistogramType[] STATS_HISTOGRAMS = {
+      HistogramType.DB_GET, HistogramType.DB_MULTIGET, HistogramType.DB_WRITE, HistogramType.DB_SEEK};
+
+  /**
+   * In merge mode a value is a sequence of frames, each a big-endian int length followed by encoded
+   * fields. Inserts put a single frame, updates merge a frame holding only the updated fields, and the
+   * string append operator joins frames with a one byte delimiter. Later frames win on read.
+   */
+  private static volatile boolean mergeUpdates = false;
+  /** Frames a record may have in merge mode before a read rewrites it as one. */
+  private static volatile int mergeMaxFrames = 8;
+
+  /**
+   * In the field layout every field is stored under its own key, the record key followed by a zero
+   * byte and the field name, so the fields of a record are adjacent and sort before those of any
+   * longer record key sharing its prefix.
+   */
+  private static volatile boolean fieldLayout = false;
+
+  /** Options of the options file's default column family, the base of column families it does not list. */
+  @GuardedBy("RocksDBClient.class") private static ColumnFamilyOptions fileDefaultOptions = null;
 
   private static final ConcurrentMap<String, ColumnFamily> COLUMN_FAMILIES = new ConcurrentHashMap<>();
   private static final ConcurrentMap<String, Lock> COLUMN_FAMILY_LOCKS = new ConcurrentHashMap<>();
 
+  /** SST files written by bulk loading client threads, per table, ingested by the last cleanup. */
+  @GuardedBy("RocksDBClient.class") private static final Map<String, List<SstBulkLoader.SstFile>> BULK_LOAD_FILES =
+      new HashMap<>();
+
+  private final RecordCodec codec = new RecordCodec();
+  /** Decodes the records updates merge with, so that they leave the views of a previous read intact. */
+  private final RecordCodec updateCodec = new RecordCodec();
+  private SstBulkLoader bulkLoader = null;
+
+  private ReadOptions scanReadOptions = null;
+  private WriteOptions writeOptions = null;
+  /** Reusable off-heap key and value buffers of this client thread, only allocated in direct buffer mode. */
+  private ByteBuffer directKey = null;
+  private ByteBuffer directValue = null;
+  private ReadOptions directReadOptions = null;
+  private boolean reuseScanIterators = true;
+  /** Tailing iterators per table, reused by the scans of this client thread. */
+  private final Map<String, RocksIterator> scanIterators = new HashMap<>();
+  private final HashMap<String, ByteIterator> scanRecord = new HashMap<>();
+
   @Override
   public void init() throws DBException {
     synchronized(RocksDBClient.class) {
@@ -62,20 +194,112 @@ public class RocksDBClient extends DB {
         rocksDbDir = Paths.get(getProperties().getProperty(PROPERTY_ROCKSDB_DIR));
         LOGGER.info("RocksDB data dir: " + rocksDbDir);
 
+        final String updateMode = getProperties().getProperty(PROPERTY_ROCKSDB_UPDATE_MODE, UPDATE_MODE_RMW);
+        if (UPDATE_MODE_MERGE.equals(updateMode)) {
+          mergeUpdates = true;
+          mergeMaxFrames = Integer.parseInt(getProperties().getProperty(PROPERTY_ROCKSDB_MERGE_MAX_FRAMES, "8"));
+          if (mergeMaxFrames < 1) {
+            throw new DBException("Invalid " + PROPERTY_ROCKSDB_MERGE_MAX_FRAMES + ": " + mergeMaxFrames);
+          }
+          mergeOperator = new StringAppendOperator();
+        } else if (UPDATE_MODE_RMW.equals(updateMode)) {
+          mergeUpdates = false;
+        } else {
+          throw new DBException("Unknown " + PROPERTY_ROCKSDB_UPDATE_MODE + ": " + updateMode
+              + ", expected " + UPDATE_MODE_RMW + " or " + UPDATE_MODE_MERGE);
+        }
+        LOGGER.info("RocksDB update mode: " + updateMode);
+
+        final String layout = getProperties().getProperty(PROPERTY_ROCKSDB_LAYOUT, LAYOUT_RECORD);
+        if (LAYOUT_FIELD.equals(layout)) {
+          if (mergeUpdates) {
+            throw new DBException(PROPERTY_ROCKSDB_LAYOUT + "=" + LAYOUT_FIELD + " updates single fields already, "
+                + "it cannot be combined with " + PROPERTY_ROCKSDB_UPDATE_MODE + "=" + UPDATE_MODE_MERGE);
+          }
+          fieldLayout = true;
+        } else if (LAYOUT_RECORD.equals(layout)) {
+          fieldLayout = false;
+        } else {
+          throw new DBException("Unknown " + PROPERTY_ROCKSDB_LAYOUT + ": " + layout
+              + ", expected " + LAYOUT_RECORD + " or " + LAYOUT_FIELD);
+        }
+        LOGGER.info("RocksDB layout: " + layout);
+
+        if (Boolean.parseBoolean(getProperties().getProperty(PROPERTY_ROCKSDB_DIRECT_BUFFER, "false"))
+            && (mergeUpdates || fieldLayout)) {
+          throw new DBException(PROPERTY_ROCKSDB_DIRECT_BUFFER + " only supports whole records, it cannot be "
+              + "combined with " + PROPERTY_ROCKSDB_UPDATE_MODE + "=" + UPDATE_MODE_MERGE + " or "
+              + PROPERTY_ROCKSDB_LAYOUT + "=" + LAYOUT_FIELD);
+        }
+
+        // fail on a malformed override now rather than when a table is first used
         try {
+          validateOverrides();
+        } catch (final IllegalArgumentException e) {
+          throw new DBException(e.getMessage(), e);
+        }
+        cacheMode = false;
+        for (final String property : getProperties().stringPropertyNames()) {
+          cacheMode |= property.startsWith("rocksdb.") && property.endsWith("." + CF_FIFO_MAX_MB);
+        }
+        GETS.reset();
+        GET_MISSES.reset();
+
+        try {
+          final String restore = getProperties().getProperty(PROPERTY_ROCKSDB_CHECKPOINT_RESTORE);
+          if (restore != null) {
+            restoreCheckpoint(Paths.get(restore));
+          }
           rocksDb = initRocksDB();
-        } catch (final IOException | RocksDBException e) {
+        } catch (final IOException | RocksDBException | IllegalArgumentException e) {
           throw new DBException(e);
         }
+
+        if (statistics != null || sharedCache != null || cacheMode) {
+          startStatsPoller(Integer.parseInt(getProperties().getProperty(PROPERTY_ROCKSDB_STATS_INTERVAL,
+              getProperties().getProperty("status.interval", "10"))));
+        }
       }
 
       references++;
     }
+
+    if (Boolean.parseBoolean(getProperties().getProperty(PROPERTY_ROCKSDB_BULK_LOAD, "false"))) {
+      final Path bulkLoadDir = Paths.get(getProperties().getProperty(PROPERTY_ROCKSDB_BULK_LOAD_DIR,
+          Paths.get(getProperties().getProperty(PROPERTY_ROCKSDB_DIR), "bulkload").toString()));
+      final long fileMb = Long.parseLong(getProperties().getProperty(PROPERTY_ROCKSDB_BULK_LOAD_FILE_MB, "64"));
+      try {
+        Files.createDirectories(bulkLoadDir);
+      } catch (final IOException e) {
+        throw new DBException(e);
+      }
+      bulkLoader = new SstBulkLoader(bulkLoadDir, fileMb * 1024 * 1024);
+    }
+
+    // a tailing iterator sees new writes without being recreated, so it can serve every scan
+    reuseScanIterators = Boolean.parseBoolean(
+        getProperties().getProperty(PROPERTY_ROCKSDB_SCAN_REUSE_ITERATOR, "true"));
+    final long readaheadKb = Long.parseLong(getProperties().getProperty(PROPERTY_ROCKSDB_SCAN_READAHEAD_KB, "0"));
+    scanReadOptions = new ReadOptions()
+        .setTailing(reuseScanIterators)
+        .setReadaheadSize(readaheadKb * 1024);
+    writeOptions = new WriteOptions();
+
+    if (Boolean.parseBoolean(getProperties().getProperty(PROPERTY_ROCKSDB_DIRECT_BUFFER, "false"))) {
+      directKey = ByteBuffer.allocateDirect(256);
+      directValue = ByteBuffer.allocateDirect(
+          Integer.parseInt(getProperties().getProperty(PROPERTY_ROCKSDB_DIRECT_BUFFER_SIZE, "65536")));
+      directReadOptions = new ReadOptions();
+    }
   }
 
   /**
    * Initializes and opens the RocksDB database.
    *
+   * If {@code rocksdb.optionsfile} is set, the DB options and column family options are loaded from
+   * that RocksDB OPTIONS file; column families it does not list start from its {@code default} column
+   * family options. The column family overrides are then applied on top.
+   *
    * Should only be called with a {@code synchronized(RocksDBClient.class)` block}.
    *
    * @return The initialized and open RocksDB instance.
@@ -85,58 +309,133 @@ public class RocksDBClient extends DB {
       Files.createDirectories(rocksDbDir);
     }
 
-    final List<String> cfNames = loadColumnFamilyNames();
-    final List<ColumnFamilyOptions> cfOptionss = new ArrayList<>();
-    final List<ColumnFamilyDescriptor> cfDescriptors = new ArrayList<>();
-
-    for(final String cfName : cfNames) {
-      final ColumnFamilyOptions cfOptions = new ColumnFamilyOptions()
-          .optimizeLevelStyleCompaction();
-      final ColumnFamilyDescriptor cfDescriptor = new ColumnFamilyDescriptor(
-          cfName.getBytes(UTF_8),
-          cfOptions
-      );
-      cfOptionss.add(cfOptions);
-      cfDescriptors.add(cfDescriptor);
-    }
-
-    final int rocksThreads = Runtime.getRuntime().availableProcessors() * 2;
-
-    if(cfDescriptors.isEmpty()) {
-      final Options options = new Options()
-          .optimizeLevelStyleCompaction()
-          .setCreateIfMissing(true)
-          .setCreateMissingColumnFamilies(true)
-          .setIncreaseParallelism(rocksThreads)
-          .setMaxBackgroundCompactions(rocksThreads)
-          .setInfoLogLevel(InfoLogLevel.INFO_LEVEL);
-      dbOptions = options;
-      return RocksDB.open(options, rocksDbDir.toAbsolutePath().toString());
+    final String optionsFile = getProperties().getProperty(PROPERTY_ROCKSDB_OPTIONS_FILE);
+    final DBOptions options = new DBOptions();
+    final List<ColumnFamilyDescriptor> fileDescriptors = new ArrayList<>();
+    if(optionsFile != null) {
+      LOGGER.info("RocksDB options file: " + optionsFile);
+      RocksDB.loadLibrary();
+      OptionsUtil.loadOptionsFromFile(optionsFile, Env.getDefault(), options, fileDescriptors);
     } else {
-      final DBOptions options = new DBOptions()
-          .setCreateIfMissing(true)
-          .setCreateMissingColumnFamilies(true)
-          .setIncreaseParallelism(rocksThreads)
+      final int rocksThreads = Runtime.getRuntime().availableProcessors() * 2;
+      options.setIncreaseParallelism(rocksThreads)
           .setMaxBackgroundCompactions(rocksThreads)
           .setInfoLogLevel(InfoLogLevel.INFO_LEVEL);
-      dbOptions = options;
-
-      final List<ColumnFamilyHandle> cfHandles = new ArrayList<>();
-      final RocksDB db = RocksDB.open(options, rocksDbDir.toAbsolutePath().toString(), cfDescriptors, cfHandles);
-      for(int i = 0; i < cfNames.size(); i++) {
-        COLUMN_FAMILIES.put(cfNames.get(i), new ColumnFamily(cfHandles.get(i), cfOptionss.get(i)));
+    }
+    options.setCreateIfMissing(true)
+        .setCreateMissingColumnFamilies(true);
+    final String allowMmapReads = getProperties().getProperty(PROPERTY_ROCKSDB_ALLOW_MMAP_READS);
+    if(allowMmapReads != null) {
+      options.setAllowMmapReads(Boolean.parseBoolean(allowMmapReads));
+    }
+    if(Boolean.parseBoolean(getProperties().getProperty(PROPERTY_ROCKSDB_STATS, "false"))) {
+      final StatsLevel level = StatsLevel.valueOf(getProperties().getProperty(PROPERTY_ROCKSDB_STATS_LEVEL,
+          StatsLevel.EXCEPT_DETAILED_TIMERS.name()).toUpperCase(Locale.ROOT));
+      statistics = new Statistics();
+      statistics.setStatsLevel(level);
+      options.setStatistics(statistics);
+    }
+    final String memoryBudgetMb = getProperties().getProperty(PROPERTY_ROCKSDB_MEMORY_BUDGET_MB);
+    if(memoryBudgetMb != null) {
+      final long budget = Long.parseLong(memoryBudgetMb) * 1024 * 1024;
+      final int writeBufferPct = Integer.parseInt(
+          getProperties().getProperty(PROPERTY_ROCKSDB_MEMORY_BUDGET_WRITE_BUFFER_PCT, "25"));
+      if(budget <= 0 || writeBufferPct <= 0 || writeBufferPct >= 100) {
+        throw new IllegalArgumentException("Invalid memory budget: " + memoryBudgetMb + " MB with "
+            + writeBufferPct + "% for write buffers");
       }
-      return db;
+      LOGGER.info("RocksDB memory budget: " + memoryBudgetMb + " MB, " + writeBufferPct + "% for write buffers");
+      // the high priority pool keeps index and filter blocks from being evicted by data blocks; with a strict
+      // capacity limit, inserts that do not fit fail instead of growing the cache past the budget, and the
+      // write buffer manager stalls writes until the memtables charged to the cache have been flushed
+      sharedCache = new LRUCache(budget, -1, true, 0.1);
+      writeBufferManager = new WriteBufferManager(budget * writeBufferPct / 100, sharedCache, true);
+      options.setWriteBufferManager(writeBufferManager);
     }
+    dbOptions = options;
+
+    // the options file decides the options of the column families it lists
+    final Map<String, ColumnFamilyOptions> baseOptions = new LinkedHashMap<>();
+    for(final ColumnFamilyDescriptor fileDescriptor : fileDescriptors) {
+      baseOptions.put(new String(fileDescriptor.getName(), UTF_8), fileDescriptor.getOptions());
+    }
+    // a copy, as opening the default column family applies its overrides to the options from the file
+    final ColumnFamilyOptions defaultOptions = baseOptions.get(new String(RocksDB.DEFAULT_COLUMN_FAMILY, UTF_8));
+    fileDefaultOptions = defaultOptions == null ? null : new ColumnFamilyOptions(defaultOptions);
+
+    final Set<String> cfNames = new LinkedHashSet<>();
+    cfNames.add(new String(RocksDB.DEFAULT_COLUMN_FAMILY, UTF_8));
+    cfNames.addAll(loadColumnFamilyNames());
+    cfNames.addAll(baseOptions.keySet());
+
+    final List<String> openedNames = new ArrayList<>();
+    final List<ColumnFamily> families = new ArrayList<>();
+    final List<ColumnFamilyDescriptor> cfDescriptors = new ArrayList<>();
+    for(final String cfName : cfNames) {
+      final ColumnFamily family = newColumnFamily(cfName, baseOptions.remove(cfName));
+      openedNames.add(cfName);
+      families.add(family);
+      cfDescriptors.add(new ColumnFamilyDescriptor(cfName.getBytes(UTF_8), family.getOptions()));
+    }
+
+    final List<ColumnFamilyHandle> cfHandles = new ArrayList<>();
+    final RocksDB db = RocksDB.open(options, rocksDbDir.toAbsolutePath().toString(), cfDescriptors, cfHandles);
+    for(int i = 0; i < openedNames.size(); i++) {
+      families.get(i).setHandle(cfHandles.get(i));
+      COLUMN_FAMILIES.put(openedNames.get(i), families.get(i));
+    }
+    return db;
   }
 
   @Override
   public void cleanup() throws DBException {
     super.cleanup();
 
+    for (final RocksIterator iterator : scanIterators.values()) {
+      iterator.close();
+    }
+    scanIterators.clear();
+    if (scanReadOptions != null) {
+      scanReadOptions.close();
+      scanReadOptions = null;
+    }
+    if (directReadOptions != null) {
+      directReadOptions.close();
+      directReadOptions = null;
+    }
+    if (writeOptions != null) {
+      writeOptions.close();
+      writeOptions = null;
+    }
+
+    if (bulkLoader != null) {
+      try {
+        for (final String table : bulkLoader.tables()) {
+          writeBulkLoadFile(table);
+        }
+      } catch (final RocksDBException e) {
+        throw new DBException(e);
+      }
+    }
+
     synchronized (RocksDBClient.class) {
       try {
         if (references == 1) {
+          ingestBulkLoadFiles();
+
+          if (statistics != null || sharedCache != null || cacheMode) {
+            stopStatsPoller();
+            pollStats();
+          }
+          if (statistics != null) {
+            reportHistograms();
+          }
+
+          final String checkpoint = getProperties().getProperty(PROPERTY_ROCKSDB_CHECKPOINT_SAVE);
+          if (checkpoint != null) {
+            saveCheckpoint(Paths.get(checkpoint));
+          }
+
           for (final ColumnFamily cf : COLUMN_FAMILIES.values()) {
             cf.getHandle().close();
           }
@@ -147,16 +446,36 @@ public class RocksDBClient extends DB {
           dbOptions.close();
           dbOptions = null;
 
+          if (statistics != null) {
+            statistics.close();
+            statistics = null;
+          }
+          if (writeBufferManager != null) {
+            writeBufferManager.close();
+            writeBufferManager = null;
+            sharedCache.close();
+            sharedCache = null;
+          }
+
           for (final ColumnFamily cf : COLUMN_FAMILIES.values()) {
-            cf.getOptions().close();
+            cf.close();
           }
-          saveColumnFamilyNames();
+          saveColumnFamilyNames(rocksDbDir);
           COLUMN_FAMILIES.clear();
+          if (fileDefaultOptions != null) {
+            fileDefaultOptions.close();
+            fileDefaultOptions = null;
+          }
+
+          if (mergeOperator != null) {
+            mergeOperator.close();
+            mergeOperator = null;
+          }
 
           rocksDbDir = null;
         }
 
-      } catch (final IOException e) {
+      } catch (final IOException | RocksDBException e) {
         throw new DBException(e);
       } finally {
         references--;
@@ -173,11 +492,28 @@ public class RocksDBClient extends DB {
       }
 
       final ColumnFamilyHandle cf = COLUMN_FAMILIES.get(table).getHandle();
-      final byte[] values = rocksDb.get(cf, key.getBytes(UTF_8));
+      if (fieldLayout) {
+        return readFields(table, cf, key.getBytes(UTF_8), fields, result);
+      }
+      if (directValue != null) {
+        final boolean found = getDirect(cf, key) != RocksDB.NOT_FOUND;
+        countGet(found);
+        if (!found) {
+          return Status.NOT_FOUND;
+        }
+        codec.decode(directValue, fields, result);
+        return Status.OK;
+      }
+      final byte[] keyBytes = key.getBytes(UTF_8);
+      final byte[] values = rocksDb.get(cf, keyBytes);
+      countGet(values != null);
       if(values == null) {
         return Status.NOT_FOUND;
       }
-      deserializeValues(values, fields, result);
+      if (mergeUpdates && frameCount(values) >= mergeMaxFrames) {
+        rewriteFrames(cf, keyBytes, values);
+      }
+      decodeRecord(values, fields, result);
       return Status.OK;
     } catch(final RocksDBException e) {
       LOGGER.error(e.getMessage(), e);
@@ -185,24 +521,88 @@ public class RocksDBClient extends DB {
     }
   }
 
+  /**
+   * Reads the whole batch with one {@code multiGetAsList} call, see {@link DB#batchRead}.
+   */
+  @Override
+  public Status batchRead(final String table, final List<String> keys, final Set<String> fields,
+      final List<Map<String, ByteIterator>> results) {
+    if (fieldLayout) {
+      return super.batchRead(table, keys, fields, results);
+    }
+    try {
+      if (!COLUMN_FAMILIES.containsKey(table)) {
+        createColumnFamily(table);
+      }
+
+      final ColumnFamilyHandle cf = COLUMN_FAMILIES.get(table).getHandle();
+      final List<byte[]> keyBytes = new ArrayList<>(keys.size());
+      for (final String key : keys) {
+        keyBytes.add(key.getBytes(UTF_8));
+      }
+      final List<byte[]> values = rocksDb.multiGetAsList(Collections.nCopies(keys.size(), cf), keyBytes);
+
+      Status status = Status.OK;
+      for (final byte[] value : values) {
+        countGet(value != null);
+        if (value == null) {
+          results.add(null);
+          status = Status.NOT_FOUND;
+          continue;
+        }
+        final Map<String, ByteIterator> result = new HashMap<>();
+        decodeRecord(value, fields, result);
+        results.add(result);
+      }
+      return status;
+    } catch(final RocksDBException e) {
+      LOGGER.error(e.getMessage(), e);
+      return Status.ERROR;
+    }
+  }
+
   @Override
   public Status scan(final String table, final String startkey, final int recordcount, final Set<String> fields,
         final Vector<HashMap<String, ByteIterator>> result) {
+    return scan(table, startkey, recordcount, fields, values -> {
+        result.add(new HashMap<>(values));
+        return true;
+      });
+  }
+
+  /**
+   * Streams the records to the visitor, decoding each into the same map. Scans reuse one tailing
+   * iterator per table, unless {@code rocksdb.scan.reuseiterator} is false, and read ahead
+   * {@code rocksdb.scan.readaheadkb} when they go to disk.
+   */
+  @Override
+  public Status scan(final String table, final String startkey, final int recordcount, final Set<String> fields,
+        final ScanVisitor visitor) {
     try {
       if (!COLUMN_FAMILIES.containsKey(table)) {
         createColumnFamily(table);
       }
 
       final ColumnFamilyHandle cf = COLUMN_FAMILIES.get(table).getHandle();
-      try(final RocksIterator iterator = rocksDb.newIterator(cf)) {
+      final RocksIterator iterator = acquireIterator(table, cf);
+      try {
+        if (fieldLayout) {
+          scanFields(iterator, startkey, recordcount, fields, visitor);
+          return Status.OK;
+        }
         int iterations = 0;
         for (iterator.seek(startkey.getBytes(UTF_8)); iterator.isValid() && iterations < recordcount;
              iterator.next()) {
-          final HashMap<String, ByteIterator> values = new HashMap<>();
-          deserializeValues(iterator.value(), fields, values);
-          result.add(values);
+          scanRecord.clear();
+          decodeRecord(iterator.value(), fields, scanRecord);
           iterations++;
+          if (!visitor.visit(scanRecord)) {
+            break;
+          }
         }
+        iterator.status();
+      } finally {
+        releaseIterator(iterator);
       }
 
       return Status.OK;
@@ -212,37 +612,68 @@ public class RocksDBClient extends DB {
     }
   }
 
+  /**
+   * Updates a record. In the default {@code rmw} mode this reads the record, applies the new values
+   * and writes the whole record back. In {@code merge} mode it merges a frame of only the updated fields
+   * without reading anything, so an update of a missing key returns OK and creates a record of just
+   * those fields rather than returning NOT_FOUND. The same goes for the blind writes of the {@code field}
+   * layout, see {@link #PROPERTY_ROCKSDB_LAYOUT}.
+   */
   @Override
   public Status update(final String table, final String key, final Map<String, ByteIterator> values) {
-    //TODO(AR) consider if this would be faster with merge operator
-
     try {
       if (!COLUMN_FAMILIES.containsKey(table)) {
         createColumnFamily(table);
       }
 
       final ColumnFamilyHandle cf = COLUMN_FAMILIES.get(table).getHandle();
-      final Map<String, ByteIterator> result = new HashMap<>();
-      final byte[] currentValues = rocksDb.get(cf, key.getBytes(UTF_8));
-      if(currentValues == null) {
+      if (directValue != null) {
+        if (getDirect(cf, key) == RocksDB.NOT_FOUND) {
+          return Status.NOT_FOUND;
+        }
+        final Map<String, ByteIterator> result = new HashMap<>();
+        updateCodec.decode(directValue, null, result);
+        result.putAll(values);
+        putDirect(cf, key, result);
+        return Status.OK;
+      }
+      final byte[] keyBytes = key.getBytes(UTF_8);
+      if (fieldLayout) {
+        writeFields(cf, keyBytes, values);
+        return Status.OK;
+      }
+      if (mergeUpdates) {
+        final int length = encodeRecord(values);
+        rocksDb.merge(cf, keyBytes, 0, keyBytes.length, codec.buffer(), 0, length);
+        return Status.OK;
+      }
+      final byte[] currentValues = rocksDb.get(cf, keyBytes);
+      if (currentValues == null) {
         return Status.NOT_FOUND;
       }
-      deserializeValues(currentValues, null, result);
+
+      final Map<String, ByteIterator> result = new HashMap<>();
+      decodeRecord(currentValues, null, result);
 
       //update
       result.putAll(values);
 
       //store
-      rocksDb.put(cf, key.getBytes(UTF_8), serializeValues(result));
+      final int length = encodeRecord(result);
+      rocksDb.put(cf, keyBytes, 0, keyBytes.length, codec.buffer(), 0, length);
 
       return Status.OK;
 
-    } catch(final RocksDBException | IOException e) {
+    } catch(final RocksDBException e) {
       LOGGER.error(e.getMessage(), e);
       return Status.ERROR;
     }
   }
 
+  /**
+   * Inserts a record. With {@code rocksdb.bulkload} the record is buffered and written to a sorted SST
+   * file instead, and only becomes visible once the files are ingested by the last cleanup.
+   */
   @Override
   public Status insert(final String table, final String key, final Map<String, ByteIterator> values) {
     try {
@@ -251,10 +682,36 @@ public class RocksDBClient extends DB {
       }
 
       final ColumnFamilyHandle cf = COLUMN_FAMILIES.get(table).getHandle();
-      rocksDb.put(cf, key.getBytes(UTF_8), serializeValues(values));
+      if (directValue != null && bulkLoader == null) {
+        putDirect(cf, key, values);
+        return Status.OK;
+      }
+      final byte[] keyBytes = key.getBytes(UTF_8);
+      if (fieldLayout) {
+        if (bulkLoader == null) {
+          writeFields(cf, keyBytes, values);
+          return Status.OK;
+        }
+        boolean full = false;
+        for (final Map.Entry<String, ByteIterator> value : values.entrySet()) {
+          full |= bulkLoader.add(table, fieldKey(keyBytes, value.getKey()), value.getValue().toArray());
+        }
+        if (full) {
+          writeBulkLoadFile(table);
+        }
+        return Status.OK;
+      }
+      final int length = encodeRecord(values);
+      if (bulkLoader != null) {
+        if (bulkLoader.add(table, keyBytes, Arrays.copyOf(codec.buffer(), length))) {
+          writeBulkLoadFile(table);
+        }
+        return Status.OK;
+      }
+      rocksDb.put(cf, keyBytes, 0, keyBytes.length, codec.buffer(), 0, length);
 
       return Status.OK;
-    } catch(final RocksDBException | IOException e) {
+    } catch(final RocksDBException e) {
       LOGGER.error(e.getMessage(), e);
       return Status.ERROR;
     }
@@ -268,6 +725,10 @@ public class RocksDBClient extends DB {
       }
 
       final ColumnFamilyHandle cf = COLUMN_FAMILIES.get(table).getHandle();
+      if (fieldLayout) {
+        deleteFields(table, cf, key.getBytes(UTF_8));
+        return Status.OK;
+      }
       rocksDb.delete(cf, key.getBytes(UTF_8));
 
       return Status.OK;
@@ -277,84 +738,688 @@ public class RocksDBClient extends DB {
     }
   }
 
-  private void saveColumnFamilyNames() throws IOException {
-    final Path file = rocksDbDir.resolve(COLUMN_FAMILY_NAMES_FILENAME);
-    try(final PrintWriter writer = new PrintWriter(Files.newBufferedWriter(file, UTF_8))) {
-      writer.println(new String(RocksDB.DEFAULT_COLUMN_FAMILY, UTF_8));
-      for(final String cfName : COLUMN_FAMILIES.keySet()) {
-        writer.println(cfName);
+  /**
+   * Reads a value into the direct value buffer, between its position and limit. A value larger than the
+   * buffer is read again into a new buffer of sufficient size.
+   *
+   * @return the size of the value, or {@link RocksDB#NOT_FOUND}.
+   */
+  private int getDirect(final ColumnFamilyHandle cf, final String key) throws RocksDBException {
+    final ByteBuffer keyBuffer = directKey(key);
+    directValue.clear();
+    int size = rocksDb.get(cf, directReadOptions, keyBuffer, directValue);
+    while (size > directValue.capacity()) {
+      directValue = ByteBuffer.allocateDirect(Integer.highestOneBit(size) << 1);
+      keyBuffer.rewind();
+      size = rocksDb.get(cf, directReadOptions, keyBuffer, directValue);
+    }
+    return size;
+  }
+
+  /**
+   * Encodes a record straight into the direct value buffer, growing it if needed, and writes it.
+   */
+  private void putDirect(final ColumnFamilyHandle cf, final String key, final Map<String, ByteIterator> values)
+      throws RocksDBException {
+    directValue.clear();
+    directValue = codec.encode(values, directValue);
+    directValue.flip();
+    rocksDb.put(cf, writeOptions, directKey(key), directValue);
+  }
+
+  /**
+   * Writes a key into the direct key buffer, ready to be read. ASCII keys, such as those YCSB generates,
+   * are copied char by char without encoding them into an array first.
+   */
+  private ByteBuffer directKey(final String key) {
+    if (key.length() > directKey.capacity()) {
+      directKey = ByteBuffer.allocateDirect(Integer.highestOneBit(key.length()) << 1);
+    }
+    directKey.clear();
+    for (int i = 0; i < key.length(); i++) {
+      final char c = key.charAt(i);
+      if (c >= 0x80) {
+        final byte[] bytes = key.getBytes(UTF_8);
+        if (bytes.length > directKey.capacity()) {
+          directKey = ByteBuffer.allocateDirect(Integer.highestOneBit(bytes.length) << 1);
+        }
+        directKey.clear();
+        directKey.put(bytes);
+        break;
       }
+      directKey.put((byte) c);
     }
+    directKey.flip();
+    return directKey;
   }
 
-  private List<String> loadColumnFamilyNames() throws IOException {
-    final List<String> cfNames = new ArrayList<>();
-    final Path file = rocksDbDir.resolve(COLUMN_FAMILY_NAMES_FILENAME);
-    if(Files.exists(file)) {
-      try (final LineNumberReader reader =
-               new LineNumberReader(Files.newBufferedReader(file, UTF_8))) {
-        String line = null;
-        while ((line = reader.readLine()) != null) {
-          cfNames.add(line);
+  /**
+   * Reads a record in the field layout: the requested fields with one {@code multiGetAsList} call, or
+   * all of them by iterating the record's key prefix.
+   */
+  private Status readFields(final String table, final ColumnFamilyHandle cf, final byte[] keyBytes,
+      final Set<String> fields, final Map<String, ByteIterator> result) throws RocksDBException {
+    if (fields != null) {
+      final List<String> names = new ArrayList<>(fields);
+      final List<byte[]> fieldKeys = new ArrayList<>(names.size());
+      for (final String name : names) {
+        fieldKeys.add(fieldKey(keyBytes, name));
+      }
+      final List<byte[]> values = rocksDb.multiGetAsList(Collections.nCopies(names.size(), cf), fieldKeys);
+      boolean found = false;
+      for (int i = 0; i < names.size(); i++) {
+        if (values.get(i) != null) {
+          result.put(names.get(i), new ByteArrayByteIterator(values.get(i)));
+          found = true;
         }
       }
+      countGet(found);
+      return found ? Status.OK : Status.NOT_FOUND;
+    }
+
+    final byte[] prefix = fieldKey(keyBytes, "");
+    final RocksIterator iterator = acquireIterator(table, cf);
+    try {
+      boolean found = false;
+      for (iterator.seek(prefix); iterator.isValid(); iterator.next()) {
+        final byte[] fieldKey = iterator.key();
+        if (!startsWith(fieldKey, prefix)) {
+          break;
+        }
+        result.put(new String(fieldKey, prefix.length, fieldKey.length - prefix.length, UTF_8),
+            new ByteArrayByteIterator(iterator.value()));
+        found = true;
+      }
+      iterator.status();
+      countGet(found);
+      return found ? Status.OK : Status.NOT_FOUND;
+    } finally {
+      releaseIterator(iterator);
     }
-    return cfNames;
   }
 
-  private Map<String, ByteIterator> deserializeValues(final byte[] values, final Set<String> fields,
-      final Map<String, ByteIterator> result) {
-    final ByteBuffer buf = ByteBuffer.allocate(4);
+  /**
+   * Writes the given fields of a record in the field layout, atomically in one batch.
+   */
+  private void writeFields(final ColumnFamilyHandle cf, final byte[] keyBytes,
+      final Map<String, ByteIterator> values) throws RocksDBException {
+    try (final WriteBatch batch = new WriteBatch()) {
+      for (final Map.Entry<String, ByteIterator> value : values.entrySet()) {
+        batch.put(cf, fieldKey(keyBytes, value.getKey()), value.getValue().toArray());
+      }
+      rocksDb.write(writeOptions, batch);
+    }
+  }
+
+  /**
+   * Deletes all fields of a record in the field layout, atomically in one batch. Point deletes rather
+   * than a range delete, which the tailing iterators reused by reads and scans do not see.
+   */
+  private void deleteFields(final String table, final ColumnFamilyHandle cf, final byte[] keyBytes)
+      throws RocksDBException {
+    final byte[] prefix = fieldKey(keyBytes, "");
+    final RocksIterator iterator = acquireIterator(table, cf);
+    try (final WriteBatch batch = new WriteBatch()) {
+      for (iterator.seek(prefix); iterator.isValid() && startsWith(iterator.key(), prefix); iterator.next()) {
+        batch.delete(cf, iterator.key());
+      }
+      iterator.status();
+      rocksDb.write(writeOptions, batch);
+    } finally {
+      releaseIterator(iterator);
+    }
+  }
+
+  /**
+   * Scans in the field layout, assembling consecutive field keys with the same record key into records.
+   */
+  private void scanFields(final RocksIterator iterator, final String startkey, final int recordcount,
+      final Set<String> fields, final ScanVisitor visitor) throws RocksDBException {
+    if (recordcount <= 0) {
+      return;
+    }
+    byte[] recordKey = null;
+    int records = 0;
+    for (iterator.seek(startkey.getBytes(UTF_8)); iterator.isValid(); iterator.next()) {
+      final byte[] fieldKey = iterator.key();
+      int separator = 0;
+      while (separator < fieldKey.length && fieldKey[separator] != 0) {
+        separator++;
+      }
+      if (separator == fieldKey.length) {
+        // not a field key
+        continue;
+      }
+      if (recordKey == null || separator != recordKey.length || !startsWith(fieldKey, recordKey)) {
+        if (recordKey != null && (!visitor.visit(scanRecord) || ++records == recordcount)) {
+          return;
+        }
+        recordKey = Arrays.copyOf(fieldKey, separator);
+        scanRecord.clear();
+      }
+      final String name = new String(fieldKey, separator + 1, fieldKey.length - separator - 1, UTF_8);
+      if (fields == null || fields.contains(name)) {
+        scanRecord.put(name, new ByteArrayByteIterator(iterator.value()));
+      }
+    }
+    iterator.status();
+    if (recordKey != null && records < recordcount) {
+      visitor.visit(scanRecord);
+    }
+  }
+
+  private static byte[] fieldKey(final byte[] recordKey, final String field) {
+    final byte[] name = field.getBytes(UTF_8);
+    final byte[] fieldKey = Arrays.copyOf(recordKey, recordKey.length + 1 + name.length);
+    System.arraycopy(name, 0, fieldKey, recordKey.length + 1, name.length);
+    return fieldKey;
+  }
+
+  private static boolean startsWith(final byte[] key, final byte[] prefix) {
+    if (key.length < prefix.length) {
+      return false;
+    }
+    for (int i = 0; i < prefix.length; i++) {
+      if (key[i] != prefix[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * @return the reused iterator of the table, or a new one if iterators are not reused.
+   */
+  private RocksIterator acquireIterator(final String table, final ColumnFamilyHandle cf) {
+    RocksIterator iterator = scanIterators.get(table);
+    if (iterator == null) {
+      iterator = rocksDb.newIterator(cf, scanReadOptions);
+      if (reuseScanIterators) {
+        scanIterators.put(table, iterator);
+      }
+    }
+    return iterator;
+  }
+
+  private void releaseIterator(final RocksIterator iterator) {
+    if (!reuseScanIterators) {
+      iterator.close();
+    }
+  }
+
+  private void writeBulkLoadFile(final String table) throws RocksDBException {
+    final SstBulkLoader.SstFile file;
+    try (final EnvOptions envOptions = new EnvOptions();
+         final Options options = new Options(dbOptions, COLUMN_FAMILIES.get(table).getOptions())) {
+      file = bulkLoader.write(table, envOptions, options);
+    }
+    if (file != null) {
+      synchronized (RocksDBClient.class) {
+        BULK_LOAD_FILES.computeIfAbsent(table, t -> new ArrayList<>()).add(file);
+      }
+    }
+  }
+
+  private static void startStatsPoller(final int intervalSeconds) {
+    if (intervalSeconds <= 0) {
+      return;
+    }
+    final long intervalMs = intervalSeconds * 1000L;
+    statsPoller = new Thread(() -> {
+        try {
+          while (true) {
+            Thread.sleep(intervalMs);
+            pollStats();
+          }
+        } catch (final InterruptedException e) {
+          // cleanup stops the poller before closing the database
+        }
+      }, "rocksdb-stats");
+    statsPoller.setDaemon(true);
+    statsPoller.start();
+  }
+
+  private static void stopStatsPoller() {
+    if (statsPoller == null) {
+      return;
+    }
+    statsPoller.interrupt();
+    try {
+      statsPoller.join();
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    statsPoller = null;
+  }
+
+  /**
+   * Adds the gets and misses of cache mode and what each ticker counted since the previous poll to the
+   * ROCKSDB-GETS, ROCKSDB-GET-MISSES and ROCKSDB-&lt;TICKER&gt; counters, and samples
+   * the current compaction backlog as the ROCKSDB-PENDING-COMPACTION-KB, ROCKSDB-L0-FILES and
+   * ROCKSDB-RUNNING-COMPACTIONS gauges. With a memory budget, its current use is sampled as well. The
+   * status thread then prints the running totals and last samples, and the exporter reports them next
+   * to the operation latencies.
+   */
+  private static void pollStats() {
+    final Measurements measurements = Measurements.getMeasurements();
+    if (cacheMode) {
+      measurements.count("ROCKSDB-GETS", GETS.sumThenReset());
+      measurements.count("ROCKSDB-GET-MISSES", GET_MISSES.sumThenReset());
+    }
+    for (int i = 0; statistics != null && i < STATS_TICKERS.length; i++) {
+      final TickerType ticker = STATS_TICKERS[i];
+      final long count = statistics.getAndResetTickerCount(ticker);
+      measurements.count("ROCKSDB-" + ticker.name().replace('_', '-'), count);
+    }
+
+    try {
+      long l0Files = 0;
+      for (final ColumnFamily cf : COLUMN_FAMILIES.values()) {
+        if (cf.getHandle() != null) {
+          l0Files += Long.parseLong(rocksDb.getProperty(cf.getHandle(), "rocksdb.num-files-at-level0"));
+        }
+      }
+      measurements.gauge("ROCKSDB-PENDING-COMPACTION-KB",
+          rocksDb.getAggregatedLongProperty("rocksdb.estimate-pending-compaction-bytes") / 1024);
+      measurements.gauge("ROCKSDB-L0-FILES", l0Files);
+      measurements.gauge("ROCKSDB-RUNNING-COMPACTIONS", rocksDb.getLongProperty("rocksdb.num-running-compactions"));
+      if (sharedCache != null) {
+        // the cache usage includes the memtables charged to it
+        measurements.gauge("ROCKSDB-BLOCK-CACHE-USAGE-MB",
+            rocksDb.getLongProperty("rocksdb.block-cache-usage") / (1024 * 1024));
+        measurements.gauge("ROCKSDB-BLOCK-CACHE-PINNED-MB",
+            rocksDb.getLongProperty("rocksdb.block-cache-pinned-usage") / (1024 * 1024));
+        measurements.gauge("ROCKSDB-MEMTABLES-MB",
+            rocksDb.getAggregatedLongProperty("rocksdb.cur-size-all-mem-tables") / (1024 * 1024));
+        measurements.gauge("ROCKSDB-TABLE-READERS-MB",
+            rocksDb.getAggregatedLongProperty("rocksdb.estimate-table-readers-mem") / (1024 * 1024));
+      }
+    } catch (final RocksDBException | NumberFormatException e) {
+      LOGGER.warn("Failed to read RocksDB properties", e);
+    }
+  }
+
+  /**
+   * Records the 99th percentile and average of the time RocksDB spent per get, multiGet, write and
+   * seek over the whole run as ROCKSDB-&lt;HISTOGRAM&gt;-P99-US and -AVG-US gauges, to tell it apart
+   * from the overhead of the binding in the operation latencies.
+   */
+  private static void reportHistograms() {
+    final Measurements measurements = Measurements.getMeasurements();
+    for (final HistogramType histogram : STATS_HISTOGRAMS) {
+      final HistogramData data = statistics.getHistogramData(histogram);
+      if (data.getCount() == 0) {
+        continue;
+      }
+      final String name = "ROCKSDB-" + histogram.name().replace('_', '-');
+      measurements.gauge(name + "-P99-US", Math.round(data.getPercentile99()));
+      measurements.gauge(name + "-AVG-US", Math.round(data.getAverage()));
+    }
+  }
+
+  private static void countGet(final boolean found) {
+    if (cacheMode) {
+      GETS.increment();
+      if (!found) {
+        GET_MISSES.increment();
+      }
+    }
+  }
+
+  /**
+   * Saves a checkpoint of the database to {@code dir}, replacing any previous one there. SST and blob
+   * files are hard linked when {@code dir} is on the same file system, so this takes seconds.
+   *
+   * Should only be called with a {@code synchronized(RocksDBClient.class)` block}.
+   */
+  private void saveCheckpoint(final Path dir) throws IOException, RocksDBException {
+    final long start = System.nanoTime();
+    deleteRecursively(dir);
+    if (dir.toAbsolutePath().getParent() != null) {
+      Files.createDirectories(dir.toAbsolutePath().getParent());
+    }
+    try (final Checkpoint checkpoint = Checkpoint.create(rocksDb)) {
+      checkpoint.createCheckpoint(dir.toAbsolutePath().toString());
+    }
+    saveColumnFamilyNames(dir);
+    LOGGER.info("Saved RocksDB checkpoint " + dir + " in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+  }
+
+  /**
+   * Replaces the contents of the data directory with a checkpoint, leaving the checkpoint untouched so
+   * that every run can start from it. The immutable SST and blob files are hard linked if possible, the
+   * files RocksDB modifies are copied.
+   *
+   * Should only be called with a {@code synchronized(RocksDBClient.class)` block}.
+   */
+  private static void restoreCheckpoint(final Path checkpoint) throws IOException {
+    if (!Files.exists(checkpoint.resolve("CURRENT"))) {
+      throw new IOException("Not a RocksDB checkpoint: " + checkpoint);
+    }
+    if (checkpoint.toAbsolutePath().normalize().startsWith(rocksDbDir.toAbsolutePath().normalize())) {
+      throw new IOException("The checkpoint " + checkpoint + " must be outside of the data dir " + rocksDbDir);
+    }
+    final long start = System.nanoTime();
+    deleteRecursively(rocksDbDir);
+    Files.createDirectories(rocksDbDir);
+    int linked = 0;
+    int copied = 0;
+    try (final DirectoryStream<Path> files = Files.newDirectoryStream(checkpoint)) {
+      for (final Path file : files) {
+        final Path target = rocksDbDir.resolve(file.getFileName());
+        final String name = file.getFileName().toString();
+        if (name.endsWith(".sst") || name.endsWith(".blob")) {
+          try {
+            Files.createLink(target, file);
+            linked++;
+            continue;
+          } catch (final IOException | UnsupportedOperationException e) {
+            // a different file system, copy instead
+          }
+        }
+        Files.copy(file, target);
+        copied++;
+      }
+    }
+    LOGGER.info("Restored RocksDB checkpoint " + checkpoint + " (" + linked + " files linked, " + copied
+        + " copied) in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+  }
 
-    int offset = 0;
-    while(offset < values.length) {
-      buf.put(values, offset, 4);
-      buf.flip();
-      final int keyLen = buf.getInt();
-      buf.clear();
-      offset += 4;
+  private static void deleteRecursively(final Path path) throws IOException {
+    if (!Files.exists(path)) {
+      return;
+    }
+    try (final Stream<Path> paths = Files.walk(path)) {
+      final List<Path> sorted = new ArrayList<>();
+      paths.forEach(sorted::add);
+      Collections.reverse(sorted);
+      for (final Path p : sorted) {
+        Files.delete(p);
+      }
+    }
+  }
+
+  /**
+   * Ingests the SST files of all bulk loading client threads, moving them into the database.
+   *
+   * Should only be called with a {@code synchronized(RocksDBClient.class)` block}.
+   */
+  private void ingestBulkLoadFiles() throws RocksDBException {
+    if (BULK_LOAD_FILES.isEmpty()) {
+      return;
+    }
+    final long start = System.nanoTime();
+    int fileCount = 0;
+    int batchCount = 0;
+    try (final IngestExternalFileOptions ingestOptions = new IngestExternalFileOptions()
+        .setMoveFiles(true)) {
+      for (final Map.Entry<String, List<SstBulkLoader.SstFile>> table : BULK_LOAD_FILES.entrySet()) {
+        final ColumnFamilyHandle cf = COLUMN_FAMILIES.get(table.getKey()).getHandle();
+        for (final List<String> batch : SstBulkLoader.ingestionBatches(table.getValue())) {
+          rocksDb.ingestExternalFile(cf, batch, ingestOptions);
+          fileCount += batch.size();
+          batchCount++;
+        }
+      }
+    } finally {
+      BULK_LOAD_FILES.clear();
+    }
+    LOGGER.info("Ingested " + fileCount + " bulk load files in " + batchCount + " batches in "
+        + (System.nanoTime() - start) / 1_000_000 + " ms");
+  }
 
-      final String key = new String(values, offset, keyLen);
-      offset += keyLen;
+  /**
+   * Encodes a record into the codec buffer, framed in merge mode.
+   *
+   * @return the length of the value in {@code codec.buffer()}.
+   */
+  private int encodeRecord(final Map<String, ByteIterator> values) {
+    if (!mergeUpdates) {
+      return codec.encode(values);
+    }
+    final int length = codec.encode(values, 4);
+    RecordCodec.putInt(codec.buffer(), 0, length - 4);
+    return length;
+  }
 
-      buf.put(values, offset, 4);
-      buf.flip();
-      final int valueLen = buf.getInt();
-      buf.clear();
-      offset += 4;
+  /**
+   * Puts a record that merges made {@code rocksdb.merge.maxframes} frames long back as a single frame,
+   * so frames do not pile up on frequently updated records. An update merged between the read and this
+   * put is lost, as with concurrent updates in {@code rmw} mode.
+   */
+  private void rewriteFrames(final ColumnFamilyHandle cf, final byte[] keyBytes, final byte[] value)
+      throws RocksDBException {
+    final Map<String, ByteIterator> record = new HashMap<>();
+    decodeRecord(value, null, record);
+    final int length = encodeRecord(record);
+    rocksDb.put(cf, keyBytes, 0, keyBytes.length, codec.buffer(), 0, length);
+  }
 
-      if(fields == null || fields.contains(key)) {
-        result.put(key, new ByteArrayByteIterator(values, offset, valueLen));
+  private static int frameCount(final byte[] value) {
+    int frames = 0;
+    for (int pos = 0; pos < value.length; pos += 4 + RecordCodec.getInt(value, pos) + 1) {
+      frames++;
+    }
+    return frames;
+  }
+
+  private void decodeRecord(final byte[] value, final Set<String> fields, final Map<String, ByteIterator> result) {
+    if (!mergeUpdates) {
+      codec.decode(value, fields, result);
+      return;
+    }
+    // frames are separated by the one byte delimiter of the string append operator
+    int pos = 0;
+    while (pos < value.length) {
+      final int frameLength = RecordCodec.getInt(value, pos);
+      codec.decode(value, pos + 4, frameLength, fields, result);
+      pos += 4 + frameLength + 1;
+    }
+  }
+
+  /**
+   * Creates the options of a column family, applying the overrides on top of {@code base}, the options
+   * from the options file, if given.
+   */
+  private ColumnFamily newColumnFamily(final String name, final ColumnFamilyOptions base) {
+    final ColumnFamilyOptions cfOptions;
+    if (base != null) {
+      cfOptions = base;
+    } else if (fileDefaultOptions != null) {
+      cfOptions = new ColumnFamilyOptions(fileDefaultOptions);
+    } else {
+      cfOptions = new ColumnFamilyOptions().optimizeLevelStyleCompaction();
+    }
+    if (mergeOperator != null) {
+      cfOptions.setMergeOperator(mergeOperator);
+    }
+    final ColumnFamily family = new ColumnFamily(cfOptions);
+
+    final String writeBufferMb = columnFamilyProperty(name, CF_WRITE_BUFFER_MB);
+    if (writeBufferMb != null) {
+      cfOptions.setWriteBufferSize(Long.parseLong(writeBufferMb) * 1024 * 1024);
+    }
+    final String compression = columnFamilyProperty(name, CF_COMPRESSION);
+    if (compression != null) {
+      final List<CompressionType> perLevel = parseCompression(compression);
+      if (perLevel.size() == 1) {
+        cfOptions.setCompressionType(perLevel.get(0));
+      } else {
+        cfOptions.setCompressionPerLevel(perLevel);
       }
+    }
 
-      offset += valueLen;
+    final String fifoMaxMb = columnFamilyProperty(name, CF_FIFO_MAX_MB);
+    if (fifoMaxMb != null) {
+      final CompactionOptionsFIFO fifoOptions = new CompactionOptionsFIFO()
+          .setMaxTableFilesSize(Long.parseLong(fifoMaxMb) * 1024 * 1024);
+      family.addResource(fifoOptions);
+      cfOptions.setCompactionStyle(CompactionStyle.FIFO)
+          .setCompactionOptionsFIFO(fifoOptions);
+    }
+    final String ttlSeconds = columnFamilyProperty(name, CF_TTL_SECONDS);
+    if (ttlSeconds != null) {
+      cfOptions.setTtl(Long.parseLong(ttlSeconds));
     }
 
-    return result;
+    final String blobMinBytes = columnFamilyProperty(name, CF_BLOB_MIN_BYTES);
+    if (blobMinBytes != null) {
+      cfOptions.setEnableBlobFiles(true)
+          .setMinBlobSize(Long.parseLong(blobMinBytes));
+      final String blobCompression = columnFamilyProperty(name, CF_BLOB_COMPRESSION);
+      if (blobCompression != null) {
+        cfOptions.setBlobCompressionType(parseCompression(blobCompression).get(0));
+      }
+      final String blobFileMb = columnFamilyProperty(name, CF_BLOB_FILE_MB);
+      if (blobFileMb != null) {
+        cfOptions.setBlobFileSize(Long.parseLong(blobFileMb) * 1024 * 1024);
+      }
+      final String gcAgeCutoff = columnFamilyProperty(name, CF_BLOB_GC_AGE_CUTOFF);
+      if (gcAgeCutoff != null) {
+        cfOptions.setEnableBlobGarbageCollection(true)
+            .setBlobGarbageCollectionAgeCutoff(Double.parseDouble(gcAgeCutoff));
+      }
+    }
+
+    // a table override or memory budget sets the table format config, which must not come from an options file
+    final String blockCacheMb = columnFamilyProperty(name, CF_BLOCK_CACHE_MB);
+    final String bloomBits = columnFamilyProperty(name, CF_BLOOM_BITS);
+    if (blockCacheMb != null || bloomBits != null || sharedCache != null) {
+      final BlockBasedTableConfig tableConfig = new BlockBasedTableConfig();
+      if (sharedCache != null) {
+        tableConfig.setBlockCache(sharedCache)
+            .setCacheIndexAndFilterBlocks(true)
+            .setCacheIndexAndFilterBlocksWithHighPriority(true)
+            .setPinL0FilterAndIndexBlocksInCache(true);
+      } else if (blockCacheMb != null) {
+        final Cache cache = new LRUCache(Long.parseLong(blockCacheMb) * 1024 * 1024);
+        family.addResource(cache);
+        tableConfig.setBlockCache(cache);
+      }
+      if (bloomBits != null) {
+        final Filter filter = new BloomFilter(Integer.parseInt(bloomBits), false);
+        family.addResource(filter);
+        tableConfig.setFilterPolicy(filter);
+      }
+      cfOptions.setTableFormatConfig(tableConfig);
+    }
+    return family;
   }
 
-  private byte[] serializeValues(final Map<String, ByteIterator> values) throws IOException {
-    try(final ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
-      final ByteBuffer buf = ByteBuffer.allocate(4);
+  private String columnFamilyProperty(final String cfName, final String name) {
+    final String global = getProperties().getProperty("rocksdb." + name);
+    return getProperties().getProperty("rocksdb.cf." + cfName + "." + name, global);
+  }
 
-      for(final Map.Entry<String, ByteIterator> value : values.entrySet()) {
-        final byte[] keyBytes = value.getKey().getBytes(UTF_8);
-        final byte[] valueBytes = value.getValue().toArray();
+  /**
+   * @return whether the column families an override applies to, all of them for rocksdb.&lt;name&gt; or one
+   *     for rocksdb.cf.&lt;cf&gt;.&lt;name&gt;, use FIFO compaction.
+   */
+  private boolean fifoFor(final String property) {
+    if (!property.startsWith("rocksdb.cf.")) {
+      return getProperties().getProperty("rocksdb." + CF_FIFO_MAX_MB) != null;
+    }
+    final String cfName = property.substring("rocksdb.cf.".length(), property.lastIndexOf('.'));
+    return columnFamilyProperty(cfName, CF_FIFO_MAX_MB) != null;
+  }
 
-        buf.putInt(keyBytes.length);
-        baos.write(buf.array());
-        baos.write(keyBytes);
+  private void validateOverrides() {
+    // the Java API cannot read the table options of an options file, so they could only be replaced
+    final boolean optionsFile = getProperties().getProperty(PROPERTY_ROCKSDB_OPTIONS_FILE) != null;
+    if (optionsFile && getProperties().getProperty(PROPERTY_ROCKSDB_MEMORY_BUDGET_MB) != null) {
+      throw new IllegalArgumentException(PROPERTY_ROCKSDB_MEMORY_BUDGET_MB + " cannot be combined with "
+          + PROPERTY_ROCKSDB_OPTIONS_FILE + ", whose table options it would replace");
+    }
+    for (final String property : getProperties().stringPropertyNames()) {
+      for (final String name : CF_OVERRIDES) {
+        if (!property.startsWith("rocksdb.") || !property.endsWith("." + name)) {
+          continue;
+        }
+        final String value = getProperties().getProperty(property);
+        if (optionsFile && (CF_BLOCK_CACHE_MB.equals(name) || CF_BLOOM_BITS.equals(name))) {
+          throw new IllegalArgumentException(property + " cannot be combined with " + PROPERTY_ROCKSDB_OPTIONS_FILE
+              + ", whose table options it would replace; set it in the options file's TableOptions section");
+        }
+        if (CF_TTL_SECONDS.equals(name) && !optionsFile && !fifoFor(property)) {
+          // with level compaction a ttl only rewrites old files, it does not drop them like a cache
+          throw new IllegalArgumentException(property + " needs " + CF_FIFO_MAX_MB + " for the same column "
+              + "families, it only expires SST files under FIFO compaction");
+        }
+        if (CF_BLOCK_CACHE_MB.equals(name) && getProperties().getProperty(PROPERTY_ROCKSDB_MEMORY_BUDGET_MB) != null) {
+          throw new IllegalArgumentException(property + " cannot be combined with " + PROPERTY_ROCKSDB_MEMORY_BUDGET_MB
+              + ", which sizes the block cache shared by all column families");
+        }
+        try {
+          if (CF_COMPRESSION.equals(name)) {
+            parseCompression(value);
+          } else if (CF_BLOB_COMPRESSION.equals(name)) {
+            // a single type, blob files have no levels
+            if (parseCompression(value).size() != 1) {
+              throw new NumberFormatException();
+            }
+          } else if (CF_BLOB_GC_AGE_CUTOFF.equals(name)) {
+            final double cutoff = Double.parseDouble(value.trim());
+            if (!(cutoff >= 0 && cutoff <= 1)) {
+              throw new NumberFormatException();
+            }
+          } else if (Long.parseLong(value.trim()) < 0) {
+            throw new NumberFormatException();
+          }
+        } catch (final NumberFormatException e) {
+          throw new IllegalArgumentException("Invalid " + property + ": " + value);
+        }
+      }
+    }
+  }
 
-        buf.clear();
+  /**
+   * Parses a comma separated list of compression types, one per level, e.g. {@code none,none,lz4,zstd}.
+   * Names are the {@link CompressionType} constants, with or without the {@code _COMPRESSION} suffix.
+   */
+  static List<CompressionType> parseCompression(final String value) {
+    final List<CompressionType> types = new ArrayList<>();
+    for (final String token : value.split(",")) {
+      final String name = token.trim().toUpperCase(Locale.ROOT);
+      CompressionType match = "NONE".equals(name) ? CompressionType.NO_COMPRESSION : null;
+      for (final CompressionType type : CompressionType.values()) {
+        if (type.name().equals(name) || type.name().equals(name + "_COMPRESSION")) {
+          match = type;
+        }
+      }
+      if (match == null) {
+        throw new IllegalArgumentException("Unknown compression type: " + token.trim());
+      }
+      types.add(match);
+    }
+    return types;
+  }
 
-        buf.putInt(valueBytes.length);
-        baos.write(buf.array());
-        baos.write(valueBytes);
+  private void saveColumnFamilyNames(final Path dir) throws IOException {
+    final Path file = dir.resolve(COLUMN_FAMILY_NAMES_FILENAME);
+    try(final PrintWriter writer = new PrintWriter(Files.newBufferedWriter(file, UTF_8))) {
+      final String defaultName = new String(RocksDB.DEFAULT_COLUMN_FAMILY, UTF_8);
+      writer.println(defaultName);
+      for(final String cfName : COLUMN_FAMILIES.keySet()) {
+        if(!cfName.equals(defaultName)) {
+          writer.println(cfName);
+        }
+      }
+    }
+  }
 
-        buf.clear();
+  private List<String> loadColumnFamilyNames() throws IOException {
+    final List<String> cfNames = new ArrayList<>();
+    final Path file = rocksDbDir.resolve(COLUMN_FAMILY_NAMES_FILENAME);
+    if(Files.exists(file)) {
+      try (final LineNumberReader reader =
+               new LineNumberReader(Files.newBufferedReader(file, UTF_8))) {
+        String line = null;
+        while ((line = reader.readLine()) != null) {
+          cfNames.add(line);
+        }
       }
-      return baos.toByteArray();
     }
+    return cfNames;
   }
 
   private void createColumnFamily(final String name) throws RocksDBException {
@@ -364,11 +1429,11 @@ public class RocksDBClient extends DB {
     l.lock();
     try {
       if(!COLUMN_FAMILIES.containsKey(name)) {
-        final ColumnFamilyOptions cfOptions = new ColumnFamilyOptions().optimizeLevelStyleCompaction();
-        final ColumnFamilyHandle cfHandle = rocksDb.createColumnFamily(
-            new ColumnFamilyDescriptor(name.getBytes(UTF_8), cfOptions)
-        );
-        COLUMN_FAMILIES.put(name, new ColumnFamily(cfHandle, cfOptions));
+        final ColumnFamily family = newColumnFamily(name, null);
+        family.setHandle(rocksDb.createColumnFamily(
+            new ColumnFamilyDescriptor(name.getBytes(UTF_8), family.getOptions())
+        ));
+        COLUMN_FAMILIES.put(name, family);
       }
     } finally {
       l.unlock();
@@ -376,11 +1441,11 @@ public class RocksDBClient extends DB {
   }
 
   private static final class ColumnFamily {
-    private final ColumnFamilyHandle handle;
+    private ColumnFamilyHandle handle;
     private final ColumnFamilyOptions options;
+    private final List<RocksObject> resources = new ArrayList<>();
 
-    private ColumnFamily(final ColumnFamilyHandle handle, final ColumnFamilyOptions options) {
-      this.handle = handle;
+    private ColumnFamily(final ColumnFamilyOptions options) {
       this.options = options;
     }
 
@@ -388,8 +1453,29 @@ public class RocksDBClient extends DB {
       return handle;
     }
 
+    private void setHandle(final ColumnFamilyHandle cfHandle) {
+      this.handle = cfHandle;
+    }
+
     public ColumnFamilyOptions getOptions() {
       return options;
     }
+
+    /**
+     * Keeps a native object the options refer to, such as a block cache, until the column family closes.
+     */
+    private void addResource(final RocksObject resource) {
+      resources.add(resource);
+    }
+
+    /**
+     * Closes the options and their resources, once the database is closed.
+     */
+    private void close() {
+      options.close();
+      for (final RocksObject resource : resources) {
+        resource.close();
+      }
+    }
   }
 }
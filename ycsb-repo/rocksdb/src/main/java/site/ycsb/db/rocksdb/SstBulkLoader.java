@@ -0,0 +1,160 @@
+/*
+ * Copyright (c) 2026 YCSB contributors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package site.ycsb.db.rocksdb;
+
+import org.rocksdb.EnvOptions;
+import org.rocksdb.Options;
+import org.rocksdb.RocksDBException;
+import org.rocksdb.SstFileWriter;
+
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Buffers the records one client thread inserts and writes them out as sorted SST files, for
+ * {@code ingestExternalFile} at the end of the load. Not thread safe.
+ */
+final class SstBulkLoader {
+
+  private static final AtomicInteger FILE_NUMBER = new AtomicInteger();
+
+  /** Per record overhead counted against the buffer size, roughly that of the entry and arrays. */
+  private static final int ENTRY_OVERHEAD = 64;
+
+  private static final Comparator<byte[][]> BYTEWISE = (a, b) -> compare(a[0], b[0]);
+
+  private final Path dir;
+  private final long fileBytes;
+  private final Map<String, List<byte[][]>> pending = new HashMap<>();
+  private final Map<String, Long> pendingBytes = new HashMap<>();
+
+  /**
+   * @param dir The directory the SST files are written to.
+   * @param fileBytes Buffered bytes per table at which a file is written.
+   */
+  SstBulkLoader(final Path dir, final long fileBytes) {
+    this.dir = dir;
+    this.fileBytes = fileBytes;
+  }
+
+  /**
+   * Buffers a record.
+   *
+   * @return true once the table's buffer is full and should be written with {@link #write}.
+   */
+  boolean add(final String table, final byte[] key, final byte[] value) {
+    pending.computeIfAbsent(table, t -> new ArrayList<>()).add(new byte[][]{key, value});
+    final long bytes = pendingBytes.getOrDefault(table, 0L) + key.length + value.length + ENTRY_OVERHEAD;
+    pendingBytes.put(table, bytes);
+    return bytes >= fileBytes;
+  }
+
+  /**
+   * @return the tables with buffered records.
+   */
+  Set<String> tables() {
+    return new HashSet<>(pending.keySet());
+  }
+
+  /**
+   * Sorts a table's buffered records and writes them to a new SST file. Of duplicate keys the last
+   * added wins.
+   *
+   * @param options The options of the table's column family, which the file is built with.
+   * @return the file written, or null if nothing was buffered.
+   */
+  SstFile write(final String table, final EnvOptions envOptions, final Options options) throws RocksDBException {
+    final List<byte[][]> records = pending.remove(table);
+    pendingBytes.remove(table);
+    if (records == null || records.isEmpty()) {
+      return null;
+    }
+    // stable, so equal keys keep their insertion order
+    records.sort(BYTEWISE);
+
+    final Path path = dir.resolve("bulk-" + FILE_NUMBER.incrementAndGet() + ".sst");
+    try (SstFileWriter writer = new SstFileWriter(envOptions, options)) {
+      writer.open(path.toString());
+      for (int i = 0; i < records.size(); i++) {
+        if (i + 1 < records.size() && compare(records.get(i)[0], records.get(i + 1)[0]) == 0) {
+          continue;
+        }
+        writer.put(records.get(i)[0], records.get(i)[1]);
+      }
+      writer.finish();
+    }
+    return new SstFile(path.toString(), records.get(0)[0], records.get(records.size() - 1)[0]);
+  }
+
+  /**
+   * Groups files into batches of files with disjoint key ranges, which {@code ingestExternalFile}
+   * accepts in one call.
+   */
+  static List<List<String>> ingestionBatches(final List<SstFile> files) {
+    final List<SstFile> sorted = new ArrayList<>(files);
+    sorted.sort((a, b) -> compare(a.smallest, b.smallest));
+
+    final List<List<String>> batches = new ArrayList<>();
+    final List<byte[]> batchLargest = new ArrayList<>();
+    for (final SstFile file : sorted) {
+      int batch = 0;
+      while (batch < batches.size() && compare(batchLargest.get(batch), file.smallest) >= 0) {
+        batch++;
+      }
+      if (batch == batches.size()) {
+        batches.add(new ArrayList<>());
+        batchLargest.add(null);
+      }
+      batches.get(batch).add(file.path);
+      batchLargest.set(batch, file.largest);
+    }
+    return batches;
+  }
+
+  /** Unsigned lexicographic order, that of RocksDB's default bytewise comparator. */
+  static int compare(final byte[] a, final byte[] b) {
+    final int len = Math.min(a.length, b.length);
+    for (int i = 0; i < len; i++) {
+      final int diff = (a[i] & 0xff) - (b[i] & 0xff);
+      if (diff != 0) {
+        return diff;
+      }
+    }
+    return a.length - b.length;
+  }
+
+  /**
+   * A written SST file and its key range.
+   */
+  static final class SstFile {
+    private final String path;
+    private final byte[] smallest;
+    private final byte[] largest;
+
+    SstFile(final String path, final byte[] smallest, final byte[] largest) {
+      this.path = path;
+      this.smallest = smallest;
+      this.largest = largest;
+    }
+
+    String getPath() {
+      return path;
+    }
+  }
+}
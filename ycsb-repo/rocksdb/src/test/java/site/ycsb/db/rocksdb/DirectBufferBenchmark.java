@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2026 YCSB contributors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package site.ycsb.db.rocksdb;
+
+import site.ycsb.ByteArrayByteIterator;
+import site.ycsb.ByteIterator;
+import site.ycsb.RandomByteIterator;
+import site.ycsb.Status;
+
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Compares the byte array and direct ByteBuffer paths of {@link RocksDBClient} by time and heap allocation
+ * per read and per update, on a freshly loaded temporary database.
+ * <p>
+ * Run from the repository root after
+ * {@code mvn -pl rocksdb -am test-compile dependency:build-classpath -Dmdep.outputFile=target/classpath}:
+ * <pre>
+ * java -cp core/target/classes:rocksdb/target/classes:rocksdb/target/test-classes:$(cat rocksdb/target/classpath) \
+ *     site.ycsb.db.rocksdb.DirectBufferBenchmark [records] [fieldcount] [fieldlength] [seconds]
+ * </pre>
+ * Allocation is measured with the HotSpot per-thread allocation counter, so this needs a HotSpot JVM.
+ * It is not named like a test, so surefire does not run it.
+ */
+public final class DirectBufferBenchmark {
+
+  private static final String TABLE = "usertable";
+
+  private DirectBufferBenchmark() {
+  }
+
+  public static void main(String[] args) throws Exception {
+    final int records = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+    final int fieldcount = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+    final int fieldlength = args.length > 2 ? Integer.parseInt(args[2]) : 100;
+    final long seconds = args.length > 3 ? Long.parseLong(args[3]) : 5;
+
+    final Map<String, ByteIterator> update = new HashMap<>();
+    update.put("field0", new ByteArrayByteIterator(new RandomByteIterator(fieldlength).toArray()));
+
+    System.out.printf("%d records of %d fields of %d bytes, %d s per operation%n", records, fieldcount, fieldlength,
+        seconds);
+    System.out.printf("%-14s %14s %14s %14s %14s%n", "mode", "read ns/op", "read B/op", "update ns/op",
+        "update B/op");
+    for (boolean direct : new boolean[]{false, true}) {
+      final Path dir = Files.createTempDirectory("rocksdb-direct-buffer");
+      final Properties properties = new Properties();
+      properties.setProperty(RocksDBClient.PROPERTY_ROCKSDB_DIR, dir.toString());
+      properties.setProperty(RocksDBClient.PROPERTY_ROCKSDB_DIRECT_BUFFER, Boolean.toString(direct));
+      final RocksDBClient client = new RocksDBClient();
+      client.setProperties(properties);
+      client.init();
+      try {
+        for (int i = 0; i < records; i++) {
+          final Map<String, ByteIterator> values = new HashMap<>();
+          for (int f = 0; f < fieldcount; f++) {
+            values.put("field" + f, new RandomByteIterator(fieldlength));
+          }
+          client.insert(TABLE, key(i), values);
+        }
+
+        // warm up both paths, then measure
+        run(client, records, null, seconds);
+        run(client, records, update, seconds);
+        final double[] read = run(client, records, null, seconds);
+        final double[] updated = run(client, records, update, seconds);
+        System.out.printf("%-14s %14.1f %14.1f %14.1f %14.1f%n", direct ? "direct buffer" : "byte array",
+            read[0], read[1], updated[0], updated[1]);
+      } finally {
+        client.cleanup();
+      }
+    }
+  }
+
+  private static String key(int i) {
+    return "user" + i;
+  }
+
+  /**
+   * Reads, or updates if {@code update} is given, records in a round robin.
+   *
+   * @return nanoseconds and bytes allocated per operation.
+   */
+  private static double[] run(RocksDBClient client, int records, Map<String, ByteIterator> update, long seconds) {
+    final com.sun.management.ThreadMXBean threads =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    final long thread = Thread.currentThread().getId();
+    // the keys are built up front so that their allocation is not counted
+    final String[] keys = new String[records];
+    for (int i = 0; i < records; i++) {
+      keys[i] = key(i);
+    }
+    final Map<String, ByteIterator> result = new HashMap<>();
+    final long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+
+    long ops = 0;
+    final long allocatedBefore = threads.getThreadAllocatedBytes(thread);
+    final long start = System.nanoTime();
+    long now = start;
+    while (now < deadline) {
+      for (int i = 0; i < 1000; i++) {
+        final String key = keys[(int) ((ops + i) % records)];
+        final Status status;
+        if (update != null) {
+          update.get("field0").reset();
+          status = client.update(TABLE, key, update);
+        } else {
+          result.clear();
+          status = client.read(TABLE, key, null, result);
+        }
+        if (!status.isOk()) {
+          throw new IllegalStateException(status + " for " + key);
+        }
+      }
+      ops += 1000;
+      now = System.nanoTime();
+    }
+    final long allocated = threads.getThreadAllocatedBytes(thread) - allocatedBefore;
+    return new double[]{(double) (now - start) / ops, (double) allocated / ops};
+  }
+}
@@ -18,15 +18,21 @@
 package site.ycsb.db.rocksdb;
 
 import site.ycsb.ByteIterator;
+import site.ycsb.DBException;
 import site.ycsb.Status;
 import site.ycsb.StringByteIterator;
+import site.ycsb.measurements.Measurements;
 import site.ycsb.workloads.CoreWorkload;
 import org.junit.*;
 import org.junit.rules.TemporaryFolder;
+import org.rocksdb.CompressionType;
 
+import java.io.File;
 import java.util.*;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 public class RocksDBClientTest {
 
@@ -78,6 +84,21 @@ public class RocksDBClientTest {
     assertEquals(Status.OK, readResult);
   }
 
+  @Test
+  public void insertAndBatchRead() throws Exception {
+    assertEquals(Status.OK, instance.insert(MOCK_TABLE, MOCK_KEY0, MOCK_DATA));
+    assertEquals(Status.OK, instance.insert(MOCK_TABLE, MOCK_KEY1, MOCK_DATA));
+
+    final List<Map<String, ByteIterator>> results = new ArrayList<>();
+    final Status result = instance.batchRead(MOCK_TABLE, Arrays.asList(MOCK_KEY1, "missing", MOCK_KEY0),
+        MOCK_DATA.keySet(), results);
+    assertEquals(Status.NOT_FOUND, result);
+    assertEquals(3, results.size());
+    assertEquals(NUM_RECORDS, results.get(0).size());
+    assertEquals(null, results.get(1));
+    assertEquals(NUM_RECORDS, results.get(2).size());
+  }
+
   @Test
   public void insertAndDelete() throws Exception {
     final Status insertResult = instance.insert(MOCK_TABLE, MOCK_KEY1, MOCK_DATA);
@@ -110,6 +131,343 @@ public class RocksDBClientTest {
     }
   }
 
+  @Test
+  public void mergeUpdateAndRead() throws Exception {
+    final Properties properties = new Properties();
+    properties.setProperty(RocksDBClient.PROPERTY_ROCKSDB_UPDATE_MODE, RocksDBClient.UPDATE_MODE_MERGE);
+    // a read of a record with three or more frames rewrites it
+    properties.setProperty(RocksDBClient.PROPERTY_ROCKSDB_MERGE_MAX_FRAMES, "3");
+    reopen(tmpFolder.newFolder(), properties);
+
+    final Map<String, ByteIterator> data = new HashMap<>(NUM_RECORDS);
+    for (int i = 0; i < NUM_RECORDS; i++) {
+      data.put(FIELD_PREFIX + i, new StringByteIterator("value" + i));
+    }
+    assertEquals(Status.OK, instance.insert(MOCK_TABLE, MOCK_KEY2, data));
+    for (int round = 0; round < 5; round++) {
+      final Map<String, ByteIterator> newValues = new HashMap<>();
+      newValues.put(FIELD_PREFIX + round, new StringByteIterator("newvalue" + round));
+      assertEquals(Status.OK, instance.update(MOCK_TABLE, MOCK_KEY2, newValues));
+      // every other round reads, so that records are rewritten with frames merged before and after
+      if (round % 2 == 1) {
+        assertEquals(Status.OK, instance.read(MOCK_TABLE, MOCK_KEY2, null, new HashMap<String, ByteIterator>()));
+      }
+    }
+
+    for (int pass = 0; pass < 2; pass++) {
+      final Map<String, ByteIterator> resultParam = new HashMap<>(NUM_RECORDS);
+      assertEquals(Status.OK, instance.read(MOCK_TABLE, MOCK_KEY2, null, resultParam));
+      assertEquals(NUM_RECORDS, resultParam.size());
+      for (int i = 0; i < NUM_RECORDS; i++) {
+        assertEquals((i < 5 ? "newvalue" : "value") + i, resultParam.get(FIELD_PREFIX + i).toString());
+      }
+    }
+
+    // merges are blind, an update of a missing key creates a record of the updated fields
+    final Map<String, ByteIterator> newValues = new HashMap<>();
+    newValues.put(FIELD_PREFIX + 0, new StringByteIterator("newvalue"));
+    assertEquals(Status.OK, instance.update(MOCK_TABLE, MOCK_KEY3, newValues));
+    final Map<String, ByteIterator> resultParam = new HashMap<>();
+    assertEquals(Status.OK, instance.read(MOCK_TABLE, MOCK_KEY3, null, resultParam));
+    assertEquals(1, resultParam.size());
+    assertEquals("newvalue", resultParam.get(FIELD_PREFIX + 0).toString());
+  }
+
+  @Test
+  public void columnFamilyOverrides() throws Exception {
+    final Properties properties = new Properties();
+    properties.setProperty(RocksDBClient.PROPERTY_ROCKSDB_ALLOW_MMAP_READS, "true");
+    properties.setProperty("rocksdb." + RocksDBClient.CF_BLOCK_CACHE_MB, "8");
+    properties.setProperty("rocksdb." + RocksDBClient.CF_BLOOM_BITS, "10");
+    properties.setProperty("rocksdb.cf." + MOCK_TABLE + "." + RocksDBClient.CF_COMPRESSION, "none,none,snappy");
+    properties.setProperty("rocksdb.cf." + MOCK_TABLE + "." + RocksDBClient.CF_WRITE_BUFFER_MB, "16");
+    reopen(tmpFolder.newFolder(), properties);
+
+    assertEquals(Status.OK, instance.insert(MOCK_TABLE, MOCK_KEY0, MOCK_DATA));
+    assertEquals(Status.OK, instance.read(MOCK_TABLE, MOCK_KEY0, null, new HashMap<String, ByteIterator>()));
+  }
+
+  @Test
+  public void optionsFile() throws Exception {
+    assertEquals(Status.OK, instance.insert(MOCK_TABLE, MOCK_KEY0, MOCK_DATA));
+    final File[] optionsFiles = tmpFolder.getRoot().listFiles((dir, name) -> name.startsWith("OPTIONS-"));
+    assertTrue(optionsFiles.length > 0);
+
+    final Properties properties = new Properties();
+    properties.setProperty(RocksDBClient.PROPERTY_ROCKSDB_OPTIONS_FILE, optionsFiles[0].getAbsolutePath());
+    reopen(tmpFolder.newFolder(), properties);
+
+    assertEquals(Status.OK, instance.insert(MOCK_TABLE, MOCK_KEY1, MOCK_DATA));
+    assertEquals(Status.OK, instance.read(MOCK_TABLE, MOCK_KEY1, null, new HashMap<String, ByteIterator>()));
+
+    // a bloom filter would replace the table options of the file
+    properties.setProperty("rocksdb." + RocksDBClient.CF_BLOOM_BITS, "10");
+    try {
+      reopen(tmpFolder.newFolder(), properties);
+      fail("bloombits combined with an options file");
+    } catch (final DBException e) {
+      assertTrue(e.getMessage(), e.getMessage().contains(RocksDBClient.PROPERTY_ROCKSDB_OPTIONS_FILE));
+    }
+    // the rejected client holds no reference, so open one without cleaning it up for tearDown to close
+    instance = new RocksDBClient();
+    properties.clear();
+    properties.setProperty(RocksDBClient.PROPERTY_ROCKSDB_DIR, tmpFolder.newFolder().getAbsolutePath());
+    instance.setProperties(properties);
+    instance.init();
+  }
+
+  @Test
+  public void bulkLoad() throws Exception {
+    final File dir = tmpFolder.newFolder();
+    final Properties properties = new Properties();
+    properties.setProperty(RocksDBClient.PROPERTY_ROCKSDB_BULK_LOAD, "true");
+    properties.setProperty(RocksDBClient.PROPERTY_ROCKSDB_BULK_LOAD_FILE_MB, "0");
+    reopen(dir, properties);
+
+    for (int i = NUM_RECORDS - 1; i >= 0; i--) {
+      final Map<String, ByteIterator> data = new HashMap<>();
+      data.put(FIELD_PREFIX + 0, new StringByteIterator("value" + i));
+      assertEquals(Status.OK, instance.insert(MOCK_TABLE, "key" + i, data));
+    }
+
+    reopen(dir, new Properties());
+    for (int i = 0; i < NUM_RECORDS; i++) {
+      final Map<String, ByteIterator> resultParam = new HashMap<>();
+      assertEquals(Status.OK, instance.read(MOCK_TABLE, "key" + i, null, resultParam));
+      assertEquals("value" + i, resultParam.get(FIELD_PREFIX + 0).toString());
+    }
+  }
+
+  @Test
+  public void bulkLoadBatchesDisjointFiles() {
+    final List<SstBulkLoader.SstFile> files = Arrays.asList(
+        new SstBulkLoader.SstFile("c", "m".getBytes(), "z".getBytes()),
+        new SstBulkLoader.SstFile("a", "a".getBytes(), "f".getBytes()),
+        new SstBulkLoader.SstFile("b", "e".getBytes(), "k".getBytes()));
+    assertEquals(Arrays.asList(Arrays.asList("a", "c"), Collections.singletonList("b")),
+        SstBulkLoader.ingestionBatches(files));
+  }
+
+  @Test
+  public void fieldLayout() throws Exception {
+    final Properties properties = new Properties();
+    properties.setProperty(RocksDBClient.PROPERTY_ROCKSDB_LAYOUT, RocksDBClient.LAYOUT_FIELD);
+    reopen(tmpFolder.newFolder(), properties);
+
+    // "key1" and "key10" share a prefix, their fields must not mix
+    for (final String key : Arrays.asList("key1", "key10", "key2")) {
+      final Map<String, ByteIterator> data = new HashMap<>();
+      for (int i = 0; i < NUM_RECORDS; i++) {
+        data.put(FIELD_PREFIX + i, new StringByteIterator(key + "-value" + i));
+      }
+      assertEquals(Status.OK, instance.insert(MOCK_TABLE, key, data));
+    }
+
+    final Map<String, ByteIterator> update = new HashMap<>();
+    update.put(FIELD_PREFIX + 3, new StringByteIterator("newvalue3"));
+    assertEquals(Status.OK, instance.update(MOCK_TABLE, "key1", update));
+
+    Map<String, ByteIterator> resultParam = new HashMap<>();
+    assertEquals(Status.OK, instance.read(MOCK_TABLE, "key1", null, resultParam));
+    assertEquals(NUM_RECORDS, resultParam.size());
+    assertEquals("newvalue3", resultParam.get(FIELD_PREFIX + 3).toString());
+    assertEquals("key1-value4", resultParam.get(FIELD_PREFIX + 4).toString());
+
+    resultParam = new HashMap<>();
+    assertEquals(Status.OK, instance.read(MOCK_TABLE, "key10", Collections.singleton(FIELD_PREFIX + 2), resultParam));
+    assertEquals(Collections.singleton(FIELD_PREFIX + 2), resultParam.keySet());
+    assertEquals("key10-value2", resultParam.get(FIELD_PREFIX + 2).toString());
+
+    final Vector<HashMap<String, ByteIterator>> scanned = new Vector<>();
+    assertEquals(Status.OK, instance.scan(MOCK_TABLE, "key1", 2, null, scanned));
+    assertEquals(2, scanned.size());
+    assertEquals("key10-value0", scanned.get(1).get(FIELD_PREFIX + 0).toString());
+    assertEquals(NUM_RECORDS, scanned.get(1).size());
+
+    assertEquals(Status.OK, instance.delete(MOCK_TABLE, "key1"));
+    assertEquals(Status.NOT_FOUND, instance.read(MOCK_TABLE, "key1", null, new HashMap<String, ByteIterator>()));
+    assertEquals(Status.OK, instance.read(MOCK_TABLE, "key10", null, new HashMap<String, ByteIterator>()));
+
+    // updates are blind, an update of a missing key creates a record of the updated fields
+    assertEquals(Status.OK, instance.update(MOCK_TABLE, "key1", update));
+    resultParam = new HashMap<>();
+    assertEquals(Status.OK, instance.read(MOCK_TABLE, "key1", null, resultParam));
+    assertEquals(update.keySet(), resultParam.keySet());
+  }
+
+  @Test
+  public void statisticsAreMeasured() throws Exception {
+    Measurements.setProperties(new Properties());
+    final Properties properties = new Properties();
+    properties.setProperty(RocksDBClient.PROPERTY_ROCKSDB_STATS, "true");
+    properties.setProperty(RocksDBClient.PROPERTY_ROCKSDB_STATS_INTERVAL, "0");
+    reopen(tmpFolder.newFolder(), properties);
+
+    assertEquals(Status.OK, instance.insert(MOCK_TABLE, MOCK_KEY0, MOCK_DATA));
+    assertEquals(Status.OK, instance.read(MOCK_TABLE, MOCK_KEY0, null, new HashMap<String, ByteIterator>()));
+    // the last cleanup polls the statistics once more
+    reopen(tmpFolder.newFolder(), new Properties());
+
+    final String summary = Measurements.getMeasurements().getSummary();
+    assertTrue(summary, summary.contains("ROCKSDB-MEMTABLE-HIT"));
+    assertTrue(summary, summary.contains("ROCKSDB-BYTES-WRITTEN: Total="));
+    assertTrue(summary, summary.contains("ROCKSDB-L0-FILES: Last="));
+    assertTrue(summary, summary.contains("ROCKSDB-DB-GET-P99-US"));
+  }
+
+  @Test
+  public void memoryBudget() throws Exception {
+    Measurements.setProperties(new Properties());
+    final Properties properties = new Properties();
+    properties.setProperty(RocksDBClient.PROPERTY_ROCKSDB_MEMORY_BUDGET_MB, "16");
+    properties.setProperty("rocksdb." + RocksDBClient.CF_BLOOM_BITS, "10");
+    properties.setProperty(RocksDBClient.PROPERTY_ROCKSDB_STATS_INTERVAL, "0");
+    reopen(tmpFolder.newFolder(), properties);
+
+    assertEquals(Status.OK, instance.insert(MOCK_TABLE, MOCK_KEY0, MOCK_DATA));
+    assertEquals(Status.OK, instance.read(MOCK_TABLE, MOCK_KEY0, null, new HashMap<String, ByteIterator>()));
+    reopen(tmpFolder.newFolder(), new Properties());
+
+    final String summary = Measurements.getMeasurements().getSummary();
+    assertTrue(summary, summary.contains("ROCKSDB-BLOCK-CACHE-USAGE-MB: Last="));
+    assertTrue(summary, summary.contains("ROCKSDB-MEMTABLES-MB"));
+  }
+
+  @Test
+  public void blobFiles() throws Exception {
+    final File dir = tmpFolder.newFolder();
+    final Properties properties = new Properties();
+    properties.setProperty("rocksdb." + RocksDBClient.CF_BLOB_MIN_BYTES, "1024");
+    properties.setProperty("rocksdb." + RocksDBClient.CF_BLOB_COMPRESSION, "lz4");
+    properties.setProperty("rocksdb." + RocksDBClient.CF_BLOB_GC_AGE_CUTOFF, "0.25");
+    reopen(dir, properties);
+
+    final char[] large = new char[8192];
+    Arrays.fill(large, 'x');
+    final Map<String, ByteIterator> data = new HashMap<>();
+    data.put(FIELD_PREFIX + 0, new StringByteIterator(new String(large)));
+    data.put(FIELD_PREFIX + 1, new StringByteIterator("small"));
+    assertEquals(Status.OK, instance.insert(MOCK_TABLE, MOCK_KEY0, data));
+
+    // recovering the WAL flushes the memtable, moving the large value into a blob file
+    reopen(dir, properties);
+    assertTrue(dir.listFiles((d, name) -> name.endsWith(".blob")).length > 0);
+
+    final Map<String, ByteIterator> resultParam = new HashMap<>();
+    assertEquals(Status.OK, instance.read(MOCK_TABLE, MOCK_KEY0, null, resultParam));
+    assertEquals(new String(large), resultParam.get(FIELD_PREFIX + 0).toString());
+    assertEquals("small", resultParam.get(FIELD_PREFIX + 1).toString());
+  }
+
+  @Test
+  public void checkpointAndRestore() throws Exception {
+    final File checkpoint = new File(tmpFolder.getRoot(), "checkpoint");
+    final Properties properties = new Properties();
+    properties.setProperty(RocksDBClient.PROPERTY_ROCKSDB_CHECKPOINT_SAVE, checkpoint.getAbsolutePath());
+    reopen(tmpFolder.newFolder(), properties);
+    assertEquals(Status.OK, instance.insert(MOCK_TABLE, MOCK_KEY0, MOCK_DATA));
+
+    // the cleanup saves the checkpoint, later writes must not reach it
+    final File dir = tmpFolder.newFolder();
+    final Properties restore = new Properties();
+    restore.setProperty(RocksDBClient.PROPERTY_ROCKSDB_CHECKPOINT_RESTORE, checkpoint.getAbsolutePath());
+    reopen(dir, restore);
+    assertEquals(Status.OK, instance.read(MOCK_TABLE, MOCK_KEY0, null, new HashMap<String, ByteIterator>()));
+    assertEquals(Status.OK, instance.insert(MOCK_TABLE, MOCK_KEY1, MOCK_DATA));
+
+    reopen(dir, restore);
+    assertEquals(Status.OK, instance.read(MOCK_TABLE, MOCK_KEY0, null, new HashMap<String, ByteIterator>()));
+    assertEquals(Status.NOT_FOUND, instance.read(MOCK_TABLE, MOCK_KEY1, null, new HashMap<String, ByteIterator>()));
+  }
+
+  @Test
+  public void fifoCacheMode() throws Exception {
+    Measurements.setProperties(new Properties());
+    final Properties properties = new Properties();
+    properties.setProperty("rocksdb." + RocksDBClient.CF_FIFO_MAX_MB, "64");
+    properties.setProperty("rocksdb." + RocksDBClient.CF_TTL_SECONDS, "3600");
+    properties.setProperty(RocksDBClient.PROPERTY_ROCKSDB_STATS_INTERVAL, "0");
+    reopen(tmpFolder.newFolder(), properties);
+
+    assertEquals(Status.OK, instance.insert(MOCK_TABLE, MOCK_KEY0, MOCK_DATA));
+    assertEquals(Status.OK, instance.read(MOCK_TABLE, MOCK_KEY0, null, new HashMap<String, ByteIterator>()));
+    assertEquals(Status.NOT_FOUND, instance.read(MOCK_TABLE, MOCK_KEY1, null, new HashMap<String, ByteIterator>()));
+    reopen(tmpFolder.newFolder(), new Properties());
+
+    final String summary = Measurements.getMeasurements().getSummary();
+    assertTrue(summary, summary.contains("ROCKSDB-GETS: Total="));
+    assertTrue(summary, summary.contains("ROCKSDB-GET-MISSES: Total="));
+  }
+
+  @Test
+  public void ttlNeedsFifo() throws Exception {
+    Measurements.setProperties(new Properties());
+    final Properties properties = new Properties();
+    // the ttl applies to all column families, FIFO compaction only to one of them
+    properties.setProperty("rocksdb.cf." + MOCK_TABLE + "." + RocksDBClient.CF_FIFO_MAX_MB, "64");
+    properties.setProperty("rocksdb." + RocksDBClient.CF_TTL_SECONDS, "3600");
+    try {
+      reopen(tmpFolder.newFolder(), properties);
+      fail("ttlseconds without fifomaxmb");
+    } catch (final DBException e) {
+      assertTrue(e.getMessage(), e.getMessage().contains(RocksDBClient.CF_FIFO_MAX_MB));
+    }
+    // the rejected client holds no reference, so open one without cleaning it up for tearDown to close
+    instance = new RocksDBClient();
+    properties.remove("rocksdb." + RocksDBClient.CF_TTL_SECONDS);
+    properties.setProperty("rocksdb.cf." + MOCK_TABLE + "." + RocksDBClient.CF_TTL_SECONDS, "3600");
+    properties.setProperty(RocksDBClient.PROPERTY_ROCKSDB_DIR, tmpFolder.newFolder().getAbsolutePath());
+    instance.setProperties(properties);
+    instance.init();
+    assertEquals(Status.OK, instance.insert(MOCK_TABLE, MOCK_KEY0, StringByteIterator.getByteIteratorMap(
+        Collections.singletonMap(FIELD_PREFIX + 0, "value0"))));
+  }
+
+  @Test
+  public void directBuffer() throws Exception {
+    final Properties properties = new Properties();
+    properties.setProperty(RocksDBClient.PROPERTY_ROCKSDB_DIRECT_BUFFER, "true");
+    // smaller than a record, so reads and writes grow the buffer
+    properties.setProperty(RocksDBClient.PROPERTY_ROCKSDB_DIRECT_BUFFER_SIZE, "16");
+    reopen(tmpFolder.newFolder(), properties);
+
+    // MOCK_DATA may have been consumed by other tests
+    final Map<String, String> data = new HashMap<>();
+    for (int i = 0; i < NUM_RECORDS; i++) {
+      data.put(FIELD_PREFIX + i, "value" + i);
+    }
+    assertEquals(Status.OK, instance.insert(MOCK_TABLE, MOCK_KEY0, StringByteIterator.getByteIteratorMap(data)));
+    final Map<String, ByteIterator> update = new HashMap<>();
+    update.put(FIELD_PREFIX + 3, new StringByteIterator("newvalue3"));
+    assertEquals(Status.OK, instance.update(MOCK_TABLE, MOCK_KEY0, update));
+    assertEquals(Status.NOT_FOUND, instance.update(MOCK_TABLE, MOCK_KEY1, update));
+
+    final Map<String, ByteIterator> resultParam = new HashMap<>();
+    assertEquals(Status.OK, instance.read(MOCK_TABLE, MOCK_KEY0, null, resultParam));
+    assertEquals(NUM_RECORDS, resultParam.size());
+    assertEquals("newvalue3", resultParam.get(FIELD_PREFIX + 3).toString());
+    assertEquals("value4", resultParam.get(FIELD_PREFIX + 4).toString());
+    // an update, as in a read-modify-write, leaves the fields just read intact
+    update.put(FIELD_PREFIX + 5, new StringByteIterator("newvalue5"));
+    assertEquals(Status.OK, instance.update(MOCK_TABLE, MOCK_KEY0, update));
+    assertEquals("value5", resultParam.get(FIELD_PREFIX + 5).toString());
+    assertEquals(Status.NOT_FOUND, instance.read(MOCK_TABLE, MOCK_KEY1, null, new HashMap<String, ByteIterator>()));
+  }
+
+  @Test
+  public void parseCompression() {
+    assertEquals(Arrays.asList(CompressionType.NO_COMPRESSION, CompressionType.LZ4_COMPRESSION,
+        CompressionType.ZSTD_COMPRESSION), RocksDBClient.parseCompression("none, lz4,ZSTD_COMPRESSION"));
+  }
+
+  private void reopen(final File dir, final Properties properties) throws Exception {
+    instance.cleanup();
+    instance = new RocksDBClient();
+    properties.setProperty(RocksDBClient.PROPERTY_ROCKSDB_DIR, dir.getAbsolutePath());
+    instance.setProperties(properties);
+    instance.init();
+  }
+
   @Test
   public void insertAndScan() throws Exception {
     final Status insertResult = instance.insert(MOCK_TABLE, MOCK_KEY3, MOCK_DATA);
@@ -120,4 +478,21 @@ public class RocksDBClientTest {
     final Status result = instance.scan(MOCK_TABLE, MOCK_KEY3, NUM_RECORDS, fields, resultParam);
     assertEquals(Status.OK, result);
   }
+
+  @Test
+  public void streamingScanStopsEarly() throws Exception {
+    for (int i = 0; i < NUM_RECORDS; i++) {
+      assertEquals(Status.OK, instance.insert(MOCK_TABLE, "scan" + i, MOCK_DATA));
+    }
+
+    for (int round = 0; round < 2; round++) {
+      final int[] visited = {0};
+      final Status result = instance.scan(MOCK_TABLE, "scan0", NUM_RECORDS, null, values -> {
+          assertEquals(NUM_RECORDS, values.size());
+          return ++visited[0] < 3;
+        });
+      assertEquals(Status.OK, result);
+      assertEquals(3, visited[0]);
+    }
+  }
 }
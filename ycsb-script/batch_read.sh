@@ -0,0 +1,118 @@
+#!/bin/bash
+
+# Run one workload at increasing read batch sizes (CoreWorkload batchsize) and report throughput and
+# per-key read latency. Data is loaded once; every batch size then runs against the same data.
+# With batchsize 1 reads go through read(), otherwise through batchRead().
+
+RED='\033[0;31m'
+GREEN='\033[0;32m'
+YELLOW='\033[1;33m'
+BLUE='\033[0;34m'
+CYAN='\033[0;36m'
+NC='\033[0m' # No Color
+
+# 默认参数
+workload="readonly_10G"
+db=rocksdb
+batch_sizes="1 4 16 64"
+threads=6
+extra_props=()
+verbose=false
+
+# 解析命令行参数
+while [[ "$#" -gt 0 ]]; do
+    case $1 in
+    -wl | --workload)
+        workload="$2"
+        shift
+        ;;
+    -db | --database)
+        db="$2"
+        shift
+        ;;
+    -bs | --batch-sizes)
+        batch_sizes="$2"
+        shift
+        ;;
+    -t | --threads)
+        threads="$2"
+        shift
+        ;;
+    -p | --property)
+        extra_props+=("-p" "$2")
+        shift
+        ;;
+    -v | --verbose) verbose=true ;;
+    *)
+        echo "Unknown parameter passed: $1"
+        exit 1
+        ;;
+    esac
+    shift
+done
+
+PROJECT_ROOT="$(cd "$(dirname "$0")" && cd ../ && pwd)"
+YCSB_DIR="$PROJECT_ROOT/ycsb-repo"
+DB_DATA_DIR_BASE="$PROJECT_ROOT/ycsb-script/${db}-dir"
+LOG_DIR="$PROJECT_ROOT/ycsb-script/benchmark-result/${db}/batch-read/${workload}"
+
+log() {
+    local color=${2:-$NC}
+    if [[ "${verbose}" = true ]]; then
+        echo -e "${color}$1${NC}"
+    fi
+}
+
+# 从 YCSB 输出中提取指标: metric_of <log> <op> <metric>
+metric_of() {
+    grep -E "^\[$2\], $3," "$1" | awk -F', ' '{print $3}'
+}
+
+main() {
+    mkdir -p "$LOG_DIR"
+    cd "$YCSB_DIR" || exit 1
+
+    log "Database: $db, Workload: $workload, Batch sizes: $batch_sizes" "$GREEN"
+    log "Cleaning up $db data directory: $DB_DATA_DIR_BASE" "$YELLOW"
+    rm -rf "$DB_DATA_DIR_BASE"
+    mkdir -p "$DB_DATA_DIR_BASE"
+
+    local loadlog="$LOG_DIR/load_threads_${threads}.log"
+    log "Loading with $threads threads, log: $loadlog" "$GREEN"
+    ./bin/ycsb load "$db" -s -P "workloads/kv-cache-research/$workload" -threads "$threads" \
+        -p "${db}.dir=$DB_DATA_DIR_BASE" "${extra_props[@]}" >"$loadlog" 2>&1
+    if [ $? -ne 0 ]; then
+        echo -e "${RED}Error during YCSB Load for $db. Check log: $loadlog${NC}"
+        exit 1
+    fi
+
+    local summary="$LOG_DIR/batch_read.log"
+    printf "%-10s %-12s %-14s %-14s %-16s %-16s\n" "batchsize" "ops/sec" "keys read/sec" "batch avg us" \
+        "per-key avg us" "per-key p99 us" | tee "$summary"
+    for bs in $batch_sizes; do
+        local runlog="$LOG_DIR/run_batch_${bs}_raw.log"
+        log "Running with batchsize $bs, log: $runlog" "$BLUE"
+        ./bin/ycsb run "$db" -s -P "workloads/kv-cache-research/$workload" -threads "$threads" \
+            -p "${db}.dir=$DB_DATA_DIR_BASE" -p "batchsize=$bs" "${extra_props[@]}" >"$runlog" 2>&1
+        if [ $? -ne 0 ]; then
+            echo -e "${RED}Error during YCSB Run with batchsize $bs. Check log: $runlog${NC}"
+            continue
+        fi
+
+        local op=READ
+        [[ "$bs" -gt 1 ]] && op=BATCH-READ
+        # 批量延迟按 key 平摊, 保留小数 (BATCH-READ-PER-KEY 是整数微秒)
+        printf "%-10s %-12s %-14s %-14s %-16s %-16s\n" "$bs" \
+            "$(metric_of "$runlog" OVERALL 'Throughput\(ops/sec\)')" \
+            "$(awk -v n="$(metric_of "$runlog" "$op" Operations)" -v b="$bs" \
+                -v t="$(metric_of "$runlog" OVERALL 'RunTime\(ms\)')" 'BEGIN {printf "%.1f", n * b * 1000 / t}')" \
+            "$(metric_of "$runlog" "$op" 'AverageLatency\(us\)')" \
+            "$(awk -v l="$(metric_of "$runlog" "$op" 'AverageLatency\(us\)')" -v b="$bs" 'BEGIN {printf "%.2f", l / b}')" \
+            "$(awk -v l="$(metric_of "$runlog" "$op" '99thPercentileLatency\(us\)')" -v b="$bs" 'BEGIN {printf "%.2f", l / b}')" |
+            tee -a "$summary"
+    done
+
+    log "Results are in: $LOG_DIR" "$CYAN"
+}
+
+main "$@"
@@ -0,0 +1,164 @@
+#!/bin/bash
+
+# Compare the hit ratio of RocksDB in cache mode (FIFO compaction capped at the capacity, rocksdb.fifomaxmb)
+# and CacheLib (cacheSizeMB) at several capacities. Every capacity is loaded and run once per database,
+# then throughput, read hit ratio (reads returning OK out of all reads) and hit ratio per GB are tabulated.
+# CacheLib runs with a per-capacity config that sets persistencePath, so that the run process attaches
+# to the cache the load process filled.
+
+RED='\033[0;31m'
+GREEN='\033[0;32m'
+YELLOW='\033[1;33m'
+BLUE='\033[0;34m'
+CYAN='\033[0;36m'
+NC='\033[0m' # No Color
+
+# 默认参数
+workload="balanced_10G"
+dbs="rocksdb cachelib"
+capacities="1024 4096"
+ttl=""
+cachelib_config=""
+threads=6
+extra_props=()
+verbose=false
+
+# 解析命令行参数
+while [[ "$#" -gt 0 ]]; do
+    case $1 in
+    -wl | --workload)
+        workload="$2"
+        shift
+        ;;
+    -dbs | --dbs)
+        dbs="$2"
+        shift
+        ;;
+    -c | --capacities)
+        capacities="$2"
+        shift
+        ;;
+    -ttl | --ttl)
+        ttl="$2"
+        shift
+        ;;
+    -cfg | --cachelib-config)
+        cachelib_config="$2"
+        shift
+        ;;
+    -t | --threads)
+        threads="$2"
+        shift
+        ;;
+    -p | --property)
+        extra_props+=("-p" "$2")
+        shift
+        ;;
+    -v | --verbose) verbose=true ;;
+    *)
+        echo "Unknown parameter passed: $1"
+        exit 1
+        ;;
+    esac
+    shift
+done
+
+PROJECT_ROOT="$(cd "$(dirname "$0")" && cd ../ && pwd)"
+YCSB_DIR="$PROJECT_ROOT/ycsb-repo"
+LOG_DIR="$PROJECT_ROOT/ycsb-script/benchmark-result/hit-ratio/${workload}"
+[[ -z "$cachelib_config" ]] && cachelib_config="$YCSB_DIR/cachelib/src/main/resources/cache_config.json"
+
+log() {
+    local color=${2:-$NC}
+    if [[ "${verbose}" = true ]]; then
+        echo -e "${color}$1${NC}"
+    fi
+}
+
+# 从 YCSB 输出中提取指标: metric_of <log> <op> <metric>
+metric_of() {
+    grep -E "^\[$2\], $3," "$1" | awk -F', ' '{print $3}'
+}
+
+# 复制 CacheLib 配置并写入 persistencePath: persistent_config <src> <dst> <persistence dir>
+persistent_config() {
+    if grep -q '"persistencePath"' "$1"; then
+        sed -E "s|\"persistencePath\"[[:space:]]*:[[:space:]]*\"[^\"]*\"|\"persistencePath\" : \"$3\"|" "$1" >"$2"
+    else
+        sed -E "s|\"cache_config\"[[:space:]]*:[[:space:]]*\{|&\n    \"persistencePath\" : \"$3\",|" "$1" >"$2"
+    fi
+}
+
+# 容量对应的数据库参数: db_props <db> <capacity MB>
+db_props() {
+    case $1 in
+    rocksdb)
+        echo "-p rocksdb.dir=$PROJECT_ROOT/ycsb-script/rocksdb-dir -p rocksdb.fifomaxmb=$2"
+        [[ -n "$ttl" ]] && echo "-p rocksdb.ttlseconds=$ttl"
+        ;;
+    cachelib)
+        # 复制配置，替换 cacheSizeMB 并写入 persistencePath
+        local config="$LOG_DIR/cachelib_${2}.json"
+        sed -E "s/\"cacheSizeMB\"[[:space:]]*:[[:space:]]*[0-9]+/\"cacheSizeMB\" : $2/" "$cachelib_config" >"$config.tmp"
+        persistent_config "$config.tmp" "$config" "$PROJECT_ROOT/ycsb-script/cachelib-dir/persistence"
+        rm -f "$config.tmp"
+        echo "-p cachelib.config=$config"
+        ;;
+    esac
+}
+
+main() {
+    mkdir -p "$LOG_DIR"
+    cd "$YCSB_DIR" || exit 1
+
+    local summary="$LOG_DIR/summary.log"
+    printf "%-10s %-14s %-12s %-14s %-14s %-16s\n" "db" "capacity MB" "ops/sec" "read avg us" \
+        "hit ratio %" "hit % per GB" | tee "$summary"
+
+    for cap in $capacities; do
+        for db in $dbs; do
+            local props
+            read -r -a props <<<"$(db_props "$db" "$cap" | tr '\n' ' ')"
+            props+=("${extra_props[@]}")
+
+            log "Database: $db, capacity: $cap MB" "$GREEN"
+            # 每个容量都从空的数据目录 (CacheLib 为持久化目录) 开始 load
+            log "Cleaning up $db data directory" "$YELLOW"
+            rm -rf "$PROJECT_ROOT/ycsb-script/${db}-dir"
+            mkdir -p "$PROJECT_ROOT/ycsb-script/${db}-dir"
+            [[ "$db" = cachelib ]] && mkdir -p "$PROJECT_ROOT/ycsb-script/cachelib-dir/persistence"
+
+            local loadlog="$LOG_DIR/load_${db}_${cap}.log"
+            log "Loading, log: $loadlog" "$BLUE"
+            ./bin/ycsb load "$db" -s -P "workloads/kv-cache-research/$workload" -threads "$threads" \
+                "${props[@]}" >"$loadlog" 2>&1
+            if [ $? -ne 0 ]; then
+                echo -e "${RED}Error during YCSB Load ($db, $cap MB). Check log: $loadlog${NC}"
+                continue
+            fi
+
+            local runlog="$LOG_DIR/run_${db}_${cap}_raw.log"
+            log "Running, log: $runlog" "$BLUE"
+            ./bin/ycsb run "$db" -s -P "workloads/kv-cache-research/$workload" -threads "$threads" \
+                "${props[@]}" >"$runlog" 2>&1
+            if [ $? -ne 0 ]; then
+                echo -e "${RED}Error during YCSB Run ($db, $cap MB). Check log: $runlog${NC}"
+                continue
+            fi
+
+            local hits misses
+            hits=$(metric_of "$runlog" READ 'Return=OK')
+            misses=$(metric_of "$runlog" READ 'Return=NOT_FOUND')
+            printf "%-10s %-14s %-12s %-14s %-14s %-16s\n" "$db" "$cap" \
+                "$(metric_of "$runlog" OVERALL 'Throughput\(ops/sec\)')" \
+                "$(metric_of "$runlog" READ 'AverageLatency\(us\)')" \
+                "$(awk -v h="${hits:-0}" -v m="${misses:-0}" 'BEGIN {if (h + m > 0) printf "%.2f", 100 * h / (h + m)}')" \
+                "$(awk -v h="${hits:-0}" -v m="${misses:-0}" -v c="$cap" \
+                    'BEGIN {if (h + m > 0) printf "%.2f", 100 * h / (h + m) / (c / 1024)}')" | tee -a "$summary"
+        done
+    done
+
+    log "Results are in: $LOG_DIR" "$CYAN"
+}
+
+main "$@"
@@ -0,0 +1,171 @@
+#!/bin/bash
+
+# Horizontal scaling of Memcached: start 1..n local memcached processes, spread the keys over them with
+# the Ketama consistent-hash locator (memcached.locator=CONSISTENT) and load and run a workload once per
+# node count. Per-node measurements (memcached.nodemetrics) show how evenly the reads are spread and
+# which node is the slowest.
+
+RED='\033[0;31m'
+GREEN='\033[0;32m'
+YELLOW='\033[1;33m'
+BLUE='\033[0;34m'
+CYAN='\033[0;36m'
+NC='\033[0m' # No Color
+
+# 默认参数
+workload="readheavy_10G"
+node_counts="1 2 4"
+base_port=11311
+memory_mb=4096
+threads=6
+extra_props=()
+verbose=false
+
+# 解析命令行参数
+while [[ "$#" -gt 0 ]]; do
+    case $1 in
+    -wl | --workload)
+        workload="$2"
+        shift
+        ;;
+    -n | --node-counts)
+        node_counts="$2"
+        shift
+        ;;
+    -port | --base-port)
+        base_port="$2"
+        shift
+        ;;
+    -m | --memory)
+        memory_mb="$2"
+        shift
+        ;;
+    -t | --threads)
+        threads="$2"
+        shift
+        ;;
+    -p | --property)
+        extra_props+=("-p" "$2")
+        shift
+        ;;
+    -v | --verbose) verbose=true ;;
+    *)
+        echo "Unknown parameter passed: $1"
+        exit 1
+        ;;
+    esac
+    shift
+done
+
+PROJECT_ROOT="$(cd "$(dirname "$0")" && cd ../ && pwd)"
+YCSB_DIR="$PROJECT_ROOT/ycsb-repo"
+LOG_DIR="$PROJECT_ROOT/ycsb-script/benchmark-result/memcached/nodes/${workload}"
+PID_DIR="$LOG_DIR/pids"
+
+log() {
+    local color=${2:-$NC}
+    if [[ "${verbose}" = true ]]; then
+        echo -e "${color}$1${NC}"
+    fi
+}
+
+# 从 YCSB 输出中提取指标: metric_of <log> <op> <metric>
+metric_of() {
+    grep -E "^\[$2\], $3," "$1" | awk -F', ' '{print $3}'
+}
+
+# 启动 n 个 memcached 进程, 每个进程分到 memory_mb / n
+start_nodes() {
+    local i
+    mkdir -p "$PID_DIR"
+    for ((i = 0; i < $1; i++)); do
+        memcached -d -l 127.0.0.1 -p $((base_port + i)) -m $((memory_mb / $1)) -P "$PID_DIR/$i.pid" || return 1
+    done
+    sleep 1
+}
+
+stop_nodes() {
+    local pidfile
+    for pidfile in "$PID_DIR"/*.pid; do
+        [[ -f "$pidfile" ]] && kill "$(cat "$pidfile")" 2>/dev/null
+        rm -f "$pidfile"
+    done
+}
+
+# 逗号分隔的 host:port 列表
+hosts_of() {
+    local i hosts=""
+    for ((i = 0; i < $1; i++)); do
+        hosts+="${hosts:+,}127.0.0.1:$((base_port + i))"
+    done
+    echo "$hosts"
+}
+
+# 各节点 READ 操作数的 max/min 和最慢节点的平均延迟: node_stats <log>
+node_stats() {
+    grep -E '^\[NODE-[^]]*-READ\], (Operations|AverageLatency\(us\)),' "$1" |
+        awk -F', ' '
+            $2 == "Operations" { ops[$1] = $3 }
+            $2 ~ /AverageLatency/ { lat[$1] = $3 }
+            END {
+                min = -1; max = 0; slow = 0; slowest = "-"
+                for (n in ops) {
+                    if (min < 0 || ops[n] < min) min = ops[n]
+                    if (ops[n] > max) max = ops[n]
+                    if (lat[n] > slow) { slow = lat[n]; slowest = n }
+                }
+                gsub(/^\[NODE-|-READ\]$/, "", slowest)
+                printf "%.2f %s %.1f", (min > 0 ? max / min : 0), slowest, slow
+            }'
+}
+
+main() {
+    mkdir -p "$LOG_DIR"
+    cd "$YCSB_DIR" || exit 1
+    trap stop_nodes EXIT
+
+    local summary="$LOG_DIR/summary.log"
+    printf "%-8s %-12s %-14s %-14s %-16s %-22s %-16s\n" "nodes" "ops/sec" "read avg us" "read p99 us" \
+        "read max/min" "slowest node" "its read avg us" | tee "$summary"
+
+    for n in $node_counts; do
+        log "Starting $n memcached nodes from port $base_port" "$YELLOW"
+        stop_nodes
+        if ! start_nodes "$n"; then
+            echo -e "${RED}Could not start $n memcached nodes. Is memcached installed?${NC}"
+            exit 1
+        fi
+        local props=(-p "memcached.hosts=$(hosts_of "$n")" -p memcached.locator=CONSISTENT
+            -p memcached.nodemetrics=true "${extra_props[@]}")
+
+        local loadlog="$LOG_DIR/load_nodes_${n}.log"
+        log "Loading, log: $loadlog" "$BLUE"
+        ./bin/ycsb load memcached -s -P "workloads/kv-cache-research/$workload" -threads "$threads" \
+            "${props[@]}" >"$loadlog" 2>&1
+        if [ $? -ne 0 ]; then
+            echo -e "${RED}Error during YCSB Load with $n nodes. Check log: $loadlog${NC}"
+            continue
+        fi
+
+        local runlog="$LOG_DIR/run_nodes_${n}_raw.log"
+        log "Running, log: $runlog" "$BLUE"
+        ./bin/ycsb run memcached -s -P "workloads/kv-cache-research/$workload" -threads "$threads" \
+            "${props[@]}" >"$runlog" 2>&1
+        if [ $? -ne 0 ]; then
+            echo -e "${RED}Error during YCSB Run with $n nodes. Check log: $runlog${NC}"
+            continue
+        fi
+
+        local stats
+        read -r -a stats <<<"$(node_stats "$runlog")"
+        printf "%-8s %-12s %-14s %-14s %-16s %-22s %-16s\n" "$n" \
+            "$(metric_of "$runlog" OVERALL 'Throughput\(ops/sec\)')" \
+            "$(metric_of "$runlog" READ 'AverageLatency\(us\)')" \
+            "$(metric_of "$runlog" READ '99thPercentileLatency\(us\)')" \
+            "${stats[0]}" "${stats[1]}" "${stats[2]}" | tee -a "$summary"
+    done
+
+    log "Results are in: $LOG_DIR" "$CYAN"
+}
+
+main "$@"
@@ -0,0 +1,141 @@
+#!/bin/bash
+
+# Compare values stored inline in SST files against RocksDB's integrated blob files (key-value separation)
+# at several value sizes. Every value size is loaded and run once per mode with one field per record,
+# sizing recordcount so the data set stays the same, then update/read latency, throughput, the bytes
+# RocksDB wrote during the run phase (flushes, compactions and blob files) and the data size are tabulated.
+
+RED='\033[0;31m'
+GREEN='\033[0;32m'
+YELLOW='\033[1;33m'
+BLUE='\033[0;34m'
+CYAN='\033[0;36m'
+NC='\033[0m' # No Color
+
+# 默认参数
+workload="updateheavy_10G"
+value_sizes="1024 10240 102400 409600"
+data_mb=10240
+blob_min_bytes=4096
+threads=6
+extra_props=()
+verbose=false
+
+# 解析命令行参数
+while [[ "$#" -gt 0 ]]; do
+    case $1 in
+    -wl | --workload)
+        workload="$2"
+        shift
+        ;;
+    -vs | --value-sizes)
+        value_sizes="$2"
+        shift
+        ;;
+    -d | --data-mb)
+        data_mb="$2"
+        shift
+        ;;
+    -b | --blob-min-bytes)
+        blob_min_bytes="$2"
+        shift
+        ;;
+    -t | --threads)
+        threads="$2"
+        shift
+        ;;
+    -p | --property)
+        extra_props+=("-p" "$2")
+        shift
+        ;;
+    -v | --verbose) verbose=true ;;
+    *)
+        echo "Unknown parameter passed: $1"
+        exit 1
+        ;;
+    esac
+    shift
+done
+
+PROJECT_ROOT="$(cd "$(dirname "$0")" && cd ../ && pwd)"
+YCSB_DIR="$PROJECT_ROOT/ycsb-repo"
+DB_DATA_DIR_BASE="$PROJECT_ROOT/ycsb-script/rocksdb-dir"
+LOG_DIR="$PROJECT_ROOT/ycsb-script/benchmark-result/rocksdb/blob/${workload}"
+
+log() {
+    local color=${2:-$NC}
+    if [[ "${verbose}" = true ]]; then
+        echo -e "${color}$1${NC}"
+    fi
+}
+
+# 从 YCSB 输出中提取指标: metric_of <log> <op> <metric>
+metric_of() {
+    grep -E "^\[$2\], $3," "$1" | awk -F', ' '{print $3}'
+}
+
+# 计数器的总量, 未出现时为 0: total_of <log> <counter>
+total_of() {
+    local total
+    total=$(metric_of "$1" "$2" Total)
+    echo "${total:-0}"
+}
+
+main() {
+    mkdir -p "$LOG_DIR"
+    cd "$YCSB_DIR" || exit 1
+
+    local summary="$LOG_DIR/summary.log"
+    printf "%-12s %-8s %-12s %-14s %-14s %-14s %-14s %-14s %-12s\n" "value bytes" "mode" "ops/sec" \
+        "update avg us" "update p99 us" "read avg us" "read p99 us" "MB written" "db size MB" | tee "$summary"
+
+    for size in $value_sizes; do
+        local records=$((data_mb * 1048576 / size))
+        for mode in inline blob; do
+            local props=(-p "rocksdb.dir=$DB_DATA_DIR_BASE" -p "rocksdb.stats=true" -p "fieldcount=1"
+                -p "fieldlength=$size" -p "recordcount=$records" -p "operationcount=$records")
+            [[ "$mode" = blob ]] && props+=(-p "rocksdb.blobminbytes=$blob_min_bytes")
+            props+=("${extra_props[@]}")
+
+            log "Value size: $size, mode: $mode, records: $records" "$GREEN"
+            log "Cleaning up rocksdb data directory: $DB_DATA_DIR_BASE" "$YELLOW"
+            rm -rf "$DB_DATA_DIR_BASE"
+            mkdir -p "$DB_DATA_DIR_BASE"
+
+            local loadlog="$LOG_DIR/load_${size}_${mode}.log"
+            log "Loading, log: $loadlog" "$BLUE"
+            ./bin/ycsb load rocksdb -s -P "workloads/kv-cache-research/$workload" -threads "$threads" \
+                "${props[@]}" >"$loadlog" 2>&1
+            if [ $? -ne 0 ]; then
+                echo -e "${RED}Error during YCSB Load ($size, $mode). Check log: $loadlog${NC}"
+                continue
+            fi
+
+            local runlog="$LOG_DIR/run_${size}_${mode}_raw.log"
+            log "Running, log: $runlog" "$BLUE"
+            ./bin/ycsb run rocksdb -s -P "workloads/kv-cache-research/$workload" -threads "$threads" \
+                "${props[@]}" >"$runlog" 2>&1
+            if [ $? -ne 0 ]; then
+                echo -e "${RED}Error during YCSB Run ($size, $mode). Check log: $runlog${NC}"
+                continue
+            fi
+
+            local written=0 m
+            for m in ROCKSDB-FLUSH-WRITE-BYTES ROCKSDB-COMPACT-WRITE-BYTES \
+                ROCKSDB-BLOB-DB-BLOB-FILE-BYTES-WRITTEN; do
+                written=$((written + $(total_of "$runlog" "$m")))
+            done
+            printf "%-12s %-8s %-12s %-14s %-14s %-14s %-14s %-14s %-12s\n" "$size" "$mode" \
+                "$(metric_of "$runlog" OVERALL 'Throughput\(ops/sec\)')" \
+                "$(metric_of "$runlog" UPDATE 'AverageLatency\(us\)')" \
+                "$(metric_of "$runlog" UPDATE '99thPercentileLatency\(us\)')" \
+                "$(metric_of "$runlog" READ 'AverageLatency\(us\)')" \
+                "$(metric_of "$runlog" READ '99thPercentileLatency\(us\)')" \
+                "$((written / 1048576))" "$(du -sm "$DB_DATA_DIR_BASE" | awk '{print $1}')" | tee -a "$summary"
+        done
+    done
+
+    log "Results are in: $LOG_DIR" "$CYAN"
+}
+
+main "$@"
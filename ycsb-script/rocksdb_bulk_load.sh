@@ -0,0 +1,102 @@
+#!/bin/bash
+
+# Compare the RocksDB load phase through put against bulk loading through SST files
+# (rocksdb.bulkload). Every workload is loaded once per mode into an empty data directory.
+# The run time of a bulk load includes writing the last SST files and ingesting them at cleanup.
+
+RED='\033[0;31m'
+GREEN='\033[0;32m'
+YELLOW='\033[1;33m'
+BLUE='\033[0;34m'
+CYAN='\033[0;36m'
+NC='\033[0m' # No Color
+
+# 默认参数
+workloads="readheavy_40G"
+threads=6
+extra_props=()
+verbose=false
+
+# 解析命令行参数
+while [[ "$#" -gt 0 ]]; do
+    case $1 in
+    -wl | --workloads)
+        workloads="$2"
+        shift
+        ;;
+    -t | --threads)
+        threads="$2"
+        shift
+        ;;
+    -p | --property)
+        extra_props+=("-p" "$2")
+        shift
+        ;;
+    -v | --verbose) verbose=true ;;
+    *)
+        echo "Unknown parameter passed: $1"
+        exit 1
+        ;;
+    esac
+    shift
+done
+
+PROJECT_ROOT="$(cd "$(dirname "$0")" && cd ../ && pwd)"
+YCSB_DIR="$PROJECT_ROOT/ycsb-repo"
+DB_DATA_DIR_BASE="$PROJECT_ROOT/ycsb-script/rocksdb-dir"
+LOG_DIR_BASE="$PROJECT_ROOT/ycsb-script/benchmark-result/rocksdb/bulk-load"
+
+log() {
+    local color=${2:-$NC}
+    if [[ "${verbose}" = true ]]; then
+        echo -e "${color}$1${NC}"
+    fi
+}
+
+# 从 YCSB 输出中提取指标: metric_of <log> <op> <metric>
+metric_of() {
+    grep -E "^\[$2\], $3," "$1" | awk -F', ' '{print $3}'
+}
+
+main() {
+    mkdir -p "$LOG_DIR_BASE"
+    cd "$YCSB_DIR" || exit 1
+
+    local summary="$LOG_DIR_BASE/summary.log"
+    printf "%-18s %-6s %-12s %-12s %-14s %-16s %-12s\n" "workload" "mode" "runtime ms" "ops/sec" \
+        "insert avg us" "cleanup max us" "db size MB" | tee "$summary"
+
+    for workload in $workloads; do
+        for bulk in false true; do
+            local mode=put
+            [[ "$bulk" = true ]] && mode=bulk
+            local logdir="$LOG_DIR_BASE/$workload"
+            mkdir -p "$logdir"
+
+            log "Workload: $workload, mode: $mode" "$GREEN"
+            log "Cleaning up rocksdb data directory: $DB_DATA_DIR_BASE" "$YELLOW"
+            rm -rf "$DB_DATA_DIR_BASE"
+            mkdir -p "$DB_DATA_DIR_BASE"
+
+            local loadlog="$logdir/load_${mode}.log"
+            log "Loading, log: $loadlog" "$BLUE"
+            ./bin/ycsb load rocksdb -s -P "workloads/kv-cache-research/$workload" -threads "$threads" \
+                -p "rocksdb.dir=$DB_DATA_DIR_BASE" -p "rocksdb.bulkload=$bulk" "${extra_props[@]}" >"$loadlog" 2>&1
+            if [ $? -ne 0 ]; then
+                echo -e "${RED}Error during YCSB Load ($workload, $mode). Check log: $loadlog${NC}"
+                continue
+            fi
+
+            printf "%-18s %-6s %-12s %-12s %-14s %-16s %-12s\n" "$workload" "$mode" \
+                "$(metric_of "$loadlog" OVERALL 'RunTime\(ms\)')" \
+                "$(metric_of "$loadlog" OVERALL 'Throughput\(ops/sec\)')" \
+                "$(metric_of "$loadlog" INSERT 'AverageLatency\(us\)')" \
+                "$(metric_of "$loadlog" CLEANUP 'MaxLatency\(us\)')" \
+                "$(du -sm "$DB_DATA_DIR_BASE" | awk '{print $1}')" | tee -a "$summary"
+        done
+    done
+
+    log "Results are in: $LOG_DIR_BASE" "$CYAN"
+}
+
+main "$@"
@@ -0,0 +1,144 @@
+#!/bin/bash
+
+# Compare RocksDB update strategies: read-modify-write (rmw), blind merge writes (merge) and other
+# configurations such as the field-per-key layout (rocksdb.layout=field).
+# Every workload is loaded and run once per mode, then update/read latency, throughput and the
+# bytes RocksDB wrote to SST files during the run phase (flush + compaction) are tabulated.
+# A mode is a rocksdb.updatemode value, or comma separated key=value properties.
+
+RED='\033[0;31m'
+GREEN='\033[0;32m'
+YELLOW='\033[1;33m'
+BLUE='\033[0;34m'
+CYAN='\033[0;36m'
+NC='\033[0m' # No Color
+
+# 默认参数
+workloads="updateheavy_10G balanced_10G"
+modes="rmw merge rocksdb.layout=field"
+threads=6
+extra_props=()
+verbose=false
+
+# 解析命令行参数
+while [[ "$#" -gt 0 ]]; do
+    case $1 in
+    -wl | --workloads)
+        workloads="$2"
+        shift
+        ;;
+    -m | --modes)
+        modes="$2"
+        shift
+        ;;
+    -t | --threads)
+        threads="$2"
+        shift
+        ;;
+    -p | --property)
+        extra_props+=("-p" "$2")
+        shift
+        ;;
+    -v | --verbose) verbose=true ;;
+    *)
+        echo "Unknown parameter passed: $1"
+        exit 1
+        ;;
+    esac
+    shift
+done
+
+PROJECT_ROOT="$(cd "$(dirname "$0")" && cd ../ && pwd)"
+YCSB_DIR="$PROJECT_ROOT/ycsb-repo"
+DB_DATA_DIR_BASE="$PROJECT_ROOT/ycsb-script/rocksdb-dir"
+LOG_DIR_BASE="$PROJECT_ROOT/ycsb-script/benchmark-result/rocksdb/update-mode"
+
+log() {
+    local color=${2:-$NC}
+    if [[ "${verbose}" = true ]]; then
+        echo -e "${color}$1${NC}"
+    fi
+}
+
+# 从 YCSB 输出中提取指标: metric_of <log> <op> <metric>
+metric_of() {
+    grep -E "^\[$2\], $3," "$1" | awk -F', ' '{print $3}'
+}
+
+# 模式转换为 -p 参数: 单词表示 rocksdb.updatemode, 否则是逗号分隔的 key=value
+mode_props() {
+    local p
+    for p in ${1//,/ }; do
+        if [[ "$p" == *=* ]]; then
+            echo "-p $p"
+        else
+            echo "-p rocksdb.updatemode=$p"
+        fi
+    done
+}
+
+# RocksDB 的 info LOG 记录每个新建 SST 文件 (flush 和 compaction) 的大小
+sst_bytes_written() {
+    cat "$DB_DATA_DIR_BASE"/LOG* 2>/dev/null | grep '"event": "table_file_creation"' |
+        grep -oE '"file_size": [0-9]+' | awk '{sum += $2} END {printf "%d", sum}'
+}
+
+main() {
+    mkdir -p "$LOG_DIR_BASE"
+    cd "$YCSB_DIR" || exit 1
+
+    local summary="$LOG_DIR_BASE/summary.log"
+    printf "%-18s %-24s %-12s %-14s %-14s %-14s %-16s %-12s\n" "workload" "mode" "ops/sec" \
+        "update avg us" "update p99 us" "read avg us" "sst MB written" "db size MB" | tee "$summary"
+
+    for workload in $workloads; do
+        for mode in $modes; do
+            local logdir="$LOG_DIR_BASE/$workload"
+            mkdir -p "$logdir"
+            local props=(-p "rocksdb.dir=$DB_DATA_DIR_BASE")
+            local mprops
+            read -r -a mprops <<<"$(mode_props "$mode" | tr '\n' ' ')"
+            props+=("${mprops[@]}" "${extra_props[@]}")
+
+            log "Workload: $workload, mode: $mode" "$GREEN"
+            log "Cleaning up rocksdb data directory: $DB_DATA_DIR_BASE" "$YELLOW"
+            rm -rf "$DB_DATA_DIR_BASE"
+            mkdir -p "$DB_DATA_DIR_BASE"
+
+            local name=${mode//[=,]/_}
+            local loadlog="$logdir/load_${name}.log"
+            log "Loading, log: $loadlog" "$BLUE"
+            ./bin/ycsb load rocksdb -s -P "workloads/kv-cache-research/$workload" -threads "$threads" \
+                "${props[@]}" >"$loadlog" 2>&1
+            if [ $? -ne 0 ]; then
+                echo -e "${RED}Error during YCSB Load ($workload, $mode). Check log: $loadlog${NC}"
+                continue
+            fi
+            local loaded
+            loaded=$(sst_bytes_written)
+
+            local runlog="$logdir/run_${name}_raw.log"
+            log "Running, log: $runlog" "$BLUE"
+            ./bin/ycsb run rocksdb -s -P "workloads/kv-cache-research/$workload" -threads "$threads" \
+                "${props[@]}" >"$runlog" 2>&1
+            if [ $? -ne 0 ]; then
+                echo -e "${RED}Error during YCSB Run ($workload, $mode). Check log: $runlog${NC}"
+                continue
+            fi
+
+            local written size
+            written=$(awk -v a="$(sst_bytes_written)" -v b="$loaded" 'BEGIN {printf "%.1f", (a - b) / 1048576}')
+            size=$(du -sm "$DB_DATA_DIR_BASE" | awk '{print $1}')
+            printf "%-18s %-24s %-12s %-14s %-14s %-14s %-16s %-12s\n" "$workload" "$mode" \
+                "$(metric_of "$runlog" OVERALL 'Throughput\(ops/sec\)')" \
+                "$(metric_of "$runlog" UPDATE 'AverageLatency\(us\)')" \
+                "$(metric_of "$runlog" UPDATE '99thPercentileLatency\(us\)')" \
+                "$(metric_of "$runlog" READ 'AverageLatency\(us\)')" \
+                "$written" "$size" | tee -a "$summary"
+        done
+    done
+
+    log "Results are in: $LOG_DIR_BASE" "$CYAN"
+}
+
+main "$@"
@@ -15,6 +15,8 @@ user_specified_workloads=""
 round=1
 verbose=false
 dbs="rocksdb"
+extra_props=()
+checkpoint=false
 
 # Parse command-line arguments
 while [[ $# -gt 0 ]]; do
@@ -35,6 +37,13 @@ while [[ $# -gt 0 ]]; do
         dbs=$2
         shift
         ;;
+    -p | --property)
+        extra_props+=("-p" "$2")
+        shift
+        ;;
+    -cp | --checkpoint)
+        checkpoint=true
+        ;;
     -v | --verbose)
         verbose=true
         ;;
@@ -89,8 +98,14 @@ ycsb_load() {
         fi
     fi
 
+    # Save a RocksDB checkpoint of the loaded data for the run rounds to restore
+    local load_props=()
+    if [[ $db == "rocksdb" && $checkpoint == true ]]; then
+        load_props=(-p "rocksdb.checkpoint.save=$CHECKPOINT_DIR_BASE/$size")
+    fi
+
     log "Loading YCSB for $db - Workload: $workload..." $GREEN
-    ./bin/ycsb load $db -s -P "$wf" -threads "$threads" -p "${db}.dir=$DB_DATA_DIR_BASE" -p "memcached.hosts=127.0.0.1:11211" >"$loadlog" 2>&1
+    ./bin/ycsb load $db -s -P "$wf" -threads "$threads" -p "${db}.dir=$DB_DATA_DIR_BASE" -p "memcached.hosts=127.0.0.1:11211" "${load_props[@]}" "${extra_props[@]}" >"$loadlog" 2>&1
     if [ $? -ne 0 ]; then
         log "Error during YCSB Load for $db (Workload: $workload). Check log: $loadlog" $RED
         return 1
@@ -105,8 +120,14 @@ ycsb_run() {
     local rn=$3
     local rawlog="$logdir/run_threads_${threads}_round_${rn}_raw.log"
 
+    # Every round starts from the same loaded state
+    local run_props=()
+    if [[ $db == "rocksdb" && $checkpoint == true ]]; then
+        run_props=(-p "rocksdb.checkpoint.restore=$CHECKPOINT_DIR_BASE/$size")
+    fi
+
     log "Running YCSB Round $rn of $round (DB: $db, Workload: $workload)..." $GREEN
-    ./bin/ycsb run $db -s -P "$wf" -threads "$threads" -p "${db}.dir=$DB_DATA_DIR_BASE" -p "memcached.hosts=127.0.0.1:11211" >"$rawlog" 2>&1
+    ./bin/ycsb run $db -s -P "$wf" -threads "$threads" -p "${db}.dir=$DB_DATA_DIR_BASE" -p "memcached.hosts=127.0.0.1:11211" "${run_props[@]}" "${extra_props[@]}" >"$rawlog" 2>&1
     if [ $? -ne 0 ]; then
         log "Error during YCSB Run Round $rn (DB: $db, Workload: $workload). Check log: $rawlog" $RED
     # else
@@ -164,6 +185,7 @@ main() {
 
     for db in $dbs; do
         DB_DATA_DIR_BASE="$PROJECT_ROOT/ycsb-script/${db}-dir"
+        CHECKPOINT_DIR_BASE="$PROJECT_ROOT/ycsb-script/${db}-checkpoint"
         log "==================================================" $YELLOW
         log "Starting benchmarks for Database: $db" $YELLOW
         log "==================================================" $YELLOW
@@ -174,8 +196,11 @@ main() {
             local dir="$LOG_DIR_BASE/$db/$workload"
             mkdir -p "$dir"
 
-            # Only load data when size changes
-            if [[ $size != $cur_size ]]; then
+            # Only load data when size changes, or never if a checkpoint of this size exists
+            if [[ $size != $cur_size && $db == "rocksdb" && $checkpoint == true && -f "$CHECKPOINT_DIR_BASE/$size/CURRENT" ]]; then
+                cur_size=$size
+                log "Using RocksDB checkpoint for size $cur_size: $CHECKPOINT_DIR_BASE/$size" $PURPLE
+            elif [[ $size != $cur_size ]]; then
                 cur_size=$size
                 log "--------------------------------------------------" $PURPLE
                 log "Switching data size to: $cur_size for DB: $db" $PURPLE
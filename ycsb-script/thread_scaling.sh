@@ -0,0 +1,146 @@
+#!/bin/bash
+
+# Run one workload at increasing client thread counts and report how throughput scales.
+# Data is loaded once; every thread count then runs against the same loaded data.
+# CacheLib runs with a copy of its config that sets persistencePath, so that every run process
+# attaches to the cache the load process filled instead of measuring an empty cache.
+
+RED='\033[0;31m'
+GREEN='\033[0;32m'
+YELLOW='\033[1;33m'
+BLUE='\033[0;34m'
+CYAN='\033[0;36m'
+NC='\033[0m' # No Color
+
+# 默认参数
+workload="readonly_10G"
+db=cachelib
+thread_counts="1 2 4 8"
+load_threads=""
+cachelib_config=""
+extra_props=()
+verbose=false
+
+# 解析命令行参数
+while [[ "$#" -gt 0 ]]; do
+    case $1 in
+    -wl | --workload)
+        workload="$2"
+        shift
+        ;;
+    -db | --database)
+        db="$2"
+        shift
+        ;;
+    -ts | --thread-counts)
+        thread_counts="$2"
+        shift
+        ;;
+    -lt | --load-threads)
+        load_threads="$2"
+        shift
+        ;;
+    -cfg | --cachelib-config)
+        cachelib_config="$2"
+        shift
+        ;;
+    -p | --property)
+        extra_props+=("-p" "$2")
+        shift
+        ;;
+    -v | --verbose) verbose=true ;;
+    *)
+        echo "Unknown parameter passed: $1"
+        exit 1
+        ;;
+    esac
+    shift
+done
+
+PROJECT_ROOT="$(cd "$(dirname "$0")" && cd ../ && pwd)"
+YCSB_DIR="$PROJECT_ROOT/ycsb-repo"
+DB_DATA_DIR_BASE="$PROJECT_ROOT/ycsb-script/${db}-dir"
+LOG_DIR="$PROJECT_ROOT/ycsb-script/benchmark-result/${db}/thread-scaling/${workload}"
+[[ -z "$cachelib_config" ]] && cachelib_config="$YCSB_DIR/cachelib/src/main/resources/cache_config.json"
+
+log() {
+    local color=${2:-$NC}
+    if [[ "${verbose}" = true ]]; then
+        echo -e "${color}$1${NC}"
+    fi
+}
+
+# 从 YCSB 输出中提取指标: metric_of <log> <op> <metric>
+metric_of() {
+    grep -E "^\[$2\], $3," "$1" | awk -F', ' '{print $3}'
+}
+
+# 复制 CacheLib 配置并写入 persistencePath: persistent_config <src> <dst> <persistence dir>
+persistent_config() {
+    if grep -q '"persistencePath"' "$1"; then
+        sed -E "s|\"persistencePath\"[[:space:]]*:[[:space:]]*\"[^\"]*\"|\"persistencePath\" : \"$3\"|" "$1" >"$2"
+    else
+        sed -E "s|\"cache_config\"[[:space:]]*:[[:space:]]*\{|&\n    \"persistencePath\" : \"$3\",|" "$1" >"$2"
+    fi
+}
+
+main() {
+    mkdir -p "$LOG_DIR"
+    cd "$YCSB_DIR" || exit 1
+
+    # 最大线程数默认用于 load
+    if [[ -z "$load_threads" ]]; then
+        load_threads=$(echo "$thread_counts" | tr ' ' '\n' | sort -n | tail -1)
+    fi
+
+    log "Database: $db, Workload: $workload, Thread counts: $thread_counts" "$GREEN"
+    log "Cleaning up $db data directory: $DB_DATA_DIR_BASE" "$YELLOW"
+    rm -rf "$DB_DATA_DIR_BASE"
+    mkdir -p "$DB_DATA_DIR_BASE"
+
+    local db_props=("-p" "${db}.dir=$DB_DATA_DIR_BASE")
+    if [[ "$db" = cachelib ]]; then
+        local config="$LOG_DIR/cache_config.json"
+        mkdir -p "$DB_DATA_DIR_BASE/persistence"
+        persistent_config "$cachelib_config" "$config" "$DB_DATA_DIR_BASE/persistence"
+        db_props+=("-p" "cachelib.config=$config")
+    fi
+
+    local loadlog="$LOG_DIR/load_threads_${load_threads}.log"
+    log "Loading with $load_threads threads, log: $loadlog" "$GREEN"
+    ./bin/ycsb load "$db" -s -P "workloads/kv-cache-research/$workload" -threads "$load_threads" \
+        "${db_props[@]}" "${extra_props[@]}" >"$loadlog" 2>&1
+    if [ $? -ne 0 ]; then
+        echo -e "${RED}Error during YCSB Load for $db. Check log: $loadlog${NC}"
+        exit 1
+    fi
+
+    local summary="$LOG_DIR/scaling.log"
+    local base=""
+    printf "%-8s %-16s %-10s %-12s\n" "threads" "ops/sec" "speedup" "read OK" | tee "$summary"
+    for t in $thread_counts; do
+        local runlog="$LOG_DIR/run_threads_${t}_raw.log"
+        log "Running with $t threads, log: $runlog" "$BLUE"
+        ./bin/ycsb run "$db" -s -P "workloads/kv-cache-research/$workload" -threads "$t" \
+            "${db_props[@]}" "${extra_props[@]}" >"$runlog" 2>&1
+        if [ $? -ne 0 ]; then
+            echo -e "${RED}Error during YCSB Run with $t threads. Check log: $runlog${NC}"
+            continue
+        fi
+
+        local tp
+        tp=$(metric_of "$runlog" OVERALL 'Throughput\(ops/sec\)')
+        if [[ -z "$tp" ]]; then
+            echo -e "${RED}No throughput found for $t threads. Check log: $runlog${NC}"
+            continue
+        fi
+        [[ -z "$base" ]] && base=$tp
+        # READ Return=OK 为 0 说明 run 进程看到的是空缓存，吞吐量没有意义
+        printf "%-8s %-16s %-10s %-12s\n" "$t" "$tp" "$(awk -v a="$tp" -v b="$base" 'BEGIN {printf "%.2f", a / b}')" \
+            "$(metric_of "$runlog" READ 'Return=OK')" | tee -a "$summary"
+    done
+
+    log "Results are in: $LOG_DIR" "$CYAN"
+}
+
+main "$@"